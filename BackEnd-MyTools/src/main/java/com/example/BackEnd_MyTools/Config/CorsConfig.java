@@ -28,7 +28,7 @@ public class CorsConfig {
                         .allowedOrigins(origins)
                         .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
                         .allowedHeaders("Authorization", "Content-Type", "Accept")
-                        .exposedHeaders("Content-Disposition")
+                        .exposedHeaders("Content-Disposition", "X-Mongo-Profile")
                         .allowCredentials(true)
                         .maxAge(3600);
             }
@@ -0,0 +1,41 @@
+package com.example.BackEnd_MyTools.Config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.example.BackEnd_MyTools.Logging.LoggingService;
+import com.example.BackEnd_MyTools.Logging.MongoCommandTracker;
+import com.example.BackEnd_MyTools.Logging.RequestLoggingAsyncInterceptor;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricsConfig {
+
+    // Enables @Timed on service methods (called through the Spring proxy)
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandTracking(MongoCommandTracker tracker) {
+        return settings -> settings.addCommandListener(tracker);
+    }
+
+    // Streaming responses run on an MVC worker thread; their Mongo round trips still count towards the request
+    @Bean
+    public WebMvcConfigurer requestLoggingAsyncSupport(ObjectProvider<LoggingService> loggingServiceProvider) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.registerCallableInterceptors(new RequestLoggingAsyncInterceptor(loggingServiceProvider));
+            }
+        };
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.BackEnd_MyTools.Controllers;
 
+import java.time.Duration;
+import java.util.List;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.BackEnd_MyTools.Entitys.AnalyticsCounters;
 import com.example.BackEnd_MyTools.Entitys.Product;
+import com.example.BackEnd_MyTools.Logging.RequestLogPolicy;
+import com.example.BackEnd_MyTools.Logging.RequestLogRollups;
+import com.example.BackEnd_MyTools.Logging.RequestLogSampler;
+import com.example.BackEnd_MyTools.Security.SecurityUtils;
+import com.example.BackEnd_MyTools.Services.AnalyticsCounterService;
 import com.example.BackEnd_MyTools.Services.ProductService;
+import com.example.BackEnd_MyTools.Services.QueryPlanService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -15,9 +25,64 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class AdminController {
     private final ProductService productService;
+    private final QueryPlanService queryPlanService;
+    private final RequestLogSampler requestLogSampler;
+    private final RequestLogRollups requestLogRollups;
+    private final AnalyticsCounterService analyticsCounterService;
 
     @PatchMapping("/products/{id}/hide")
     public ResponseEntity<Product> hideProduct(@PathVariable String id, @AuthenticationPrincipal Jwt jwt) {
         return ResponseEntity.ok(productService.hideProduct(id, jwt));
     }
+
+    @GetMapping("/query-plans/products")
+    public ResponseEntity<List<QueryPlanService.QueryPlanReport>> productQueryPlans(@AuthenticationPrincipal Jwt jwt) {
+        if (!SecurityUtils.isAdmin(jwt))
+            throw new SecurityException("Admin role required");
+        return ResponseEntity.ok(queryPlanService.explainProductQueries());
+    }
+
+    @GetMapping("/request-log-policy")
+    public ResponseEntity<RequestLogPolicy> requestLogPolicy(@AuthenticationPrincipal Jwt jwt) {
+        if (!SecurityUtils.isAdmin(jwt))
+            throw new SecurityException("Admin role required");
+        return ResponseEntity.ok(requestLogSampler.getPolicy());
+    }
+
+    @PutMapping("/request-log-policy")
+    public ResponseEntity<RequestLogPolicy> updateRequestLogPolicy(@RequestBody RequestLogPolicy policy,
+            @AuthenticationPrincipal Jwt jwt) {
+        if (!SecurityUtils.isAdmin(jwt))
+            throw new SecurityException("Admin role required");
+        return ResponseEntity.ok(requestLogSampler.update(policy));
+    }
+
+    @GetMapping("/request-logs/endpoints")
+    public ResponseEntity<List<RequestLogRollups.RollupStats>> requestLogEndpoints(
+            @RequestParam(defaultValue = "60") int minutes, @AuthenticationPrincipal Jwt jwt) {
+        if (!SecurityUtils.isAdmin(jwt))
+            throw new SecurityException("Admin role required");
+        return ResponseEntity.ok(requestLogRollups.endpoints(Duration.ofMinutes(clampMinutes(minutes))));
+    }
+
+    @GetMapping("/request-logs/timeline")
+    public ResponseEntity<List<RequestLogRollups.RollupStats>> requestLogTimeline(@RequestParam String method,
+            @RequestParam String route, @RequestParam(defaultValue = "60") int minutes,
+            @AuthenticationPrincipal Jwt jwt) {
+        if (!SecurityUtils.isAdmin(jwt))
+            throw new SecurityException("Admin role required");
+        return ResponseEntity.ok(requestLogRollups.timeline(method, route, Duration.ofMinutes(clampMinutes(minutes))));
+    }
+
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<AnalyticsCounters> rebuildAnalytics(@AuthenticationPrincipal Jwt jwt) {
+        if (!SecurityUtils.isAdmin(jwt))
+            throw new SecurityException("Admin role required");
+        return ResponseEntity.ok(analyticsCounterService.rebuild());
+    }
+
+    // Rollups are kept for 90 days by default; a week of minutes is plenty for one dashboard view
+    private int clampMinutes(int minutes) {
+        return Math.max(1, Math.min(minutes, 7 * 24 * 60));
+    }
 }
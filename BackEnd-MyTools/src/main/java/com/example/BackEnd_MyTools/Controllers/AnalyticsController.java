@@ -1,15 +1,21 @@
 package com.example.BackEnd_MyTools.Controllers;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.BackEnd_MyTools.Entitys.Order;
 import com.example.BackEnd_MyTools.Services.AnalyticsService;
+import com.example.BackEnd_MyTools.Services.AnalyticsTrendService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -18,17 +24,38 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class AnalyticsController {
     private final AnalyticsService analyticsService;
+    private final AnalyticsTrendService analyticsTrendService;
 
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> dashboard(@AuthenticationPrincipal Jwt jwt) {
         return ResponseEntity.ok(analyticsService.dashboard(jwt));
     }
 
+    @GetMapping("/trends")
+    public ResponseEntity<List<AnalyticsTrendService.TrendPoint>> trends(
+            @RequestParam(defaultValue = "day") String interval,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String sellerId,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) String city,
+            @AuthenticationPrincipal Jwt jwt) {
+        return ResponseEntity.ok(analyticsTrendService.trend(jwt, interval, from, to, sellerId, categoryId, city));
+    }
+
     @GetMapping("/orders.csv")
-    public ResponseEntity<byte[]> ordersCsv(@AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<StreamingResponseBody> ordersCsv(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Order.OrderStatus> status,
+            @RequestParam(defaultValue = "false") boolean items,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal Jwt jwt) {
+        StreamingResponseBody body = analyticsService.ordersCsv(jwt, from, to, status, items, gzip);
+        String filename = (items ? "order-items" : "orders") + ".csv" + (gzip ? ".gz" : "");
         return ResponseEntity.ok()
-            .contentType(MediaType.parseMediaType("text/csv"))
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=orders.csv")
-            .body(analyticsService.ordersCsv(jwt));
+            .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("text/csv; charset=UTF-8"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+            .body(body);
     }
 }
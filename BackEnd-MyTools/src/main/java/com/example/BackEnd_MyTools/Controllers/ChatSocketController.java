@@ -0,0 +1,51 @@
+package com.example.BackEnd_MyTools.Controllers;
+
+import java.security.Principal;
+import java.util.Map;
+
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Controller;
+
+import com.example.BackEnd_MyTools.DTO.ChatReadRequest;
+import com.example.BackEnd_MyTools.DTO.ChatTypingRequest;
+import com.example.BackEnd_MyTools.Services.MessagingService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * STOMP side of messaging: clients SEND to /app/chat.typing and /app/chat.read and receive on
+ * /user/queue/messages, /user/queue/typing and /user/queue/receipts. Sessions are authenticated at CONNECT by
+ * {@link com.example.BackEnd_MyTools.Security.StompAuthInterceptor}.
+ */
+@Controller
+@RequiredArgsConstructor
+public class ChatSocketController {
+    private final MessagingService messagingService;
+
+    @MessageMapping("/chat.typing")
+    public void typing(@Payload ChatTypingRequest request, Principal principal) {
+        messagingService.typing(jwt(principal), request.getConversationId(), request.isTyping());
+    }
+
+    @MessageMapping("/chat.read")
+    public void read(@Payload ChatReadRequest request, Principal principal) {
+        messagingService.markRead(jwt(principal), request.getConversationId());
+    }
+
+    @MessageExceptionHandler({ IllegalArgumentException.class, SecurityException.class })
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, String> handleError(RuntimeException ex) {
+        return Map.of("error", ex.getMessage());
+    }
+
+    private static Jwt jwt(Principal principal) {
+        if (principal instanceof JwtAuthenticationToken token)
+            return token.getToken();
+        throw new SecurityException("Authentication required");
+    }
+}
@@ -131,9 +131,12 @@ public class ForumController {
         return ResponseEntity.noContent().build();
     }
 
-    /* ── GET /forum/feed ── full DTO with answers ── */
+    /* ── GET /forum/feed ── newest questions with their top answers ── */
     @GetMapping("/feed")
-    public ResponseEntity<List<ForumQuestionDTO>> getFeed() {
-        return ResponseEntity.ok(forumService.getForumFeed());
+    public ResponseEntity<Page<ForumQuestionDTO>> getFeed(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "3") int answers) {
+        return ResponseEntity.ok(forumService.getForumFeed(page, size, answers));
     }
 }
\ No newline at end of file
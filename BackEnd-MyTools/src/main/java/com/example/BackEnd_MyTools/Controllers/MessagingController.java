@@ -34,10 +34,36 @@ public class MessagingController {
         return ResponseEntity.ok(messagingService.myConversations(SecurityUtils.currentUserId(jwt)));
     }
 
+    @GetMapping("/inbox")
+    public ResponseEntity<MessagingService.InboxPage> inbox(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal Jwt jwt) {
+        return ResponseEntity.ok(messagingService.inbox(SecurityUtils.currentUserId(jwt), cursor, limit));
+    }
+
+    // Plain list for existing clients: the whole thread, or only the newest page when a limit is given
     @GetMapping("/conversations/{conversationId}")
     public ResponseEntity<List<ChatMessage>> messages(@PathVariable String conversationId,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal Jwt jwt) {
+        if (limit == null)
+            return ResponseEntity.ok(messagingService.thread(conversationId, jwt));
+        return ResponseEntity.ok(messagingService.messages(conversationId, jwt, null, null, limit).items());
+    }
+
+    @GetMapping("/conversations/{conversationId}/history")
+    public ResponseEntity<MessagingService.MessagePage> history(@PathVariable String conversationId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal Jwt jwt) {
+        return ResponseEntity.ok(messagingService.messages(conversationId, jwt, before, since, limit));
+    }
+
+    @PostMapping("/conversations/{conversationId}/read")
+    public ResponseEntity<MessagingService.ReadReceipt> markRead(@PathVariable String conversationId,
             @AuthenticationPrincipal Jwt jwt) {
-        return ResponseEntity.ok(messagingService.messages(conversationId, jwt));
+        return ResponseEntity.ok(messagingService.markRead(jwt, conversationId));
     }
 
     @PostMapping
@@ -1,6 +1,7 @@
 package com.example.BackEnd_MyTools.Controllers;
 
 import com.example.BackEnd_MyTools.DTO.DtoGetProduct;
+import com.example.BackEnd_MyTools.DTO.DtoProductPage;
 import com.example.BackEnd_MyTools.Entitys.Product;
 import com.example.BackEnd_MyTools.Mapper.ProductMapper;
 import com.example.BackEnd_MyTools.Security.SecurityUtils;
@@ -74,6 +75,25 @@ public class ProductController {
         return ResponseEntity.ok(productMapper.toDtoList(products, baseUrl));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<DtoProductPage> getProductsPage(HttpServletRequest request,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Integer markId,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) String ownerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        ProductService.ProductPage page = productService.getProductsPage(categoryId, markId, available, name,
+                latitude, longitude, radiusKm, ownerId, cursor, limit);
+        String baseUrl = String.format("%s://%s:%d%s", request.getScheme(), request.getServerName(),
+                request.getServerPort(), request.getContextPath());
+        return ResponseEntity.ok(new DtoProductPage(productMapper.toDtoList(page.items(), baseUrl), page.nextCursor()));
+    }
+
     @GetMapping("/mine")
     public ResponseEntity<List<Product>> getMyProducts(@AuthenticationPrincipal Jwt jwt) {
         return ResponseEntity.ok(productService.getMyProducts(SecurityUtils.currentUserId(jwt)));
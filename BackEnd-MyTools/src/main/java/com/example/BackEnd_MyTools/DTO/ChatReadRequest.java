@@ -0,0 +1,8 @@
+package com.example.BackEnd_MyTools.DTO;
+
+import lombok.Data;
+
+@Data
+public class ChatReadRequest {
+    private String conversationId;
+}
@@ -0,0 +1,9 @@
+package com.example.BackEnd_MyTools.DTO;
+
+import lombok.Data;
+
+@Data
+public class ChatTypingRequest {
+    private String conversationId;
+    private boolean typing;
+}
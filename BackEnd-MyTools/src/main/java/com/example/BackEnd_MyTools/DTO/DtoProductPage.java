@@ -0,0 +1,15 @@
+package com.example.BackEnd_MyTools.DTO;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DtoProductPage {
+    private List<DtoGetProduct> items;
+    // Opaque token for the next page; null when this is the last page
+    private String nextCursor;
+}
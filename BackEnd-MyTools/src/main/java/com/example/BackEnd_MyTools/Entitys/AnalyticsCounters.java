@@ -0,0 +1,45 @@
+package com.example.BackEnd_MyTools.Entitys;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pre-aggregated dashboard totals for one scope: {@code global}, or {@code seller:<ownerId>} for the orders,
+ * products and reviews of one seller. Maintained with $inc updates as orders, products and reviews change, so
+ * the analytics dashboard is a single document read.
+ */
+@Document(collection = "analytics_counters")
+@Data
+@NoArgsConstructor
+public class AnalyticsCounters {
+    public static final String GLOBAL = "global";
+
+    @Id
+    private String id;
+
+    private long orders;
+    private Map<String, Long> ordersByStatus = new HashMap<>();
+    // For sellers: their own line totals, not the whole order amount
+    private Map<String, Double> revenueByStatus = new HashMap<>();
+    private long products;
+    private long reviews;
+    private Instant updatedAt;
+
+    public static String sellerKey(String ownerId) {
+        return "seller:" + ownerId;
+    }
+
+    public double revenue() {
+        return revenueByStatus.entrySet().stream()
+                .filter(e -> !Order.OrderStatus.CANCELLED.name().equals(e.getKey()))
+                .mapToDouble(Map.Entry::getValue)
+                .sum();
+    }
+}
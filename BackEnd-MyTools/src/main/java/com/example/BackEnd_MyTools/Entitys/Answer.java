@@ -4,10 +4,13 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 // Answer.java
 @Document(collection = "Answer")
+// Answers of one question by upvotes, for the answer list and the feed's top answers
+@CompoundIndex(name = "question_top", def = "{'questionId': 1, 'upvotes': -1}")
 @Data
 public class Answer {
 
@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -12,6 +13,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Document(collection = "Booking")
+// Rental-day trends match a startDate range, either store-wide or for one owner
+@CompoundIndex(name = "start_status", def = "{'startDate': 1, 'status': 1}")
+@CompoundIndex(name = "owner_start", def = "{'ownerId': 1, 'startDate': 1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,6 +38,8 @@ public class Booking {
     private String userId;
     private String userName;
     private String orderId;
+    // Hold of the BookingReservation days backing this booking
+    private String reservationId;
     private LocalDate startDate;
     private LocalDate endDate;
     private int quantity;
@@ -0,0 +1,37 @@
+package com.example.BackEnd_MyTools.Entitys;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One booked day of one resource. The id is "<resourceType>:<resourceId>:<day>", so the unique _id index
+ * guarantees that two holds can never claim the same resource-day, even under concurrent checkouts.
+ */
+@Document(collection = "BookingReservation")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingReservation {
+    @Id
+    private String id;
+
+    private Booking.ResourceType resourceType;
+    private String resourceId;
+    private LocalDate day;
+    // Shared by every day claimed in the same checkout or direct booking; stored on the Booking as reservationId
+    private String holdId;
+    private LocalDateTime createdAt;
+
+    public static String key(Booking.ResourceType resourceType, String resourceId, LocalDate day) {
+        return resourceType + ":" + resourceId + ":" + day;
+    }
+}
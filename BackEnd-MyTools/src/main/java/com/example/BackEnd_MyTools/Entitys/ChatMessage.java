@@ -3,6 +3,7 @@ package com.example.BackEnd_MyTools.Entitys;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -11,6 +12,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Document(collection = "ChatMessage")
+// History pages walk one conversation by (createdAt, _id) in either direction
+@CompoundIndex(name = "conversation_recent", def = "{'conversationId': 1, 'createdAt': 1, '_id': 1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
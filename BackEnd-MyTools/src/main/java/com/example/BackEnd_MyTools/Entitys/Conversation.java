@@ -2,22 +2,36 @@ package com.example.BackEnd_MyTools.Entitys;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
 
 @Document(collection = "Conversation")
+// The inbox lists one participant's conversations newest first and pages by (updatedAt, _id)
+@CompoundIndex(name = "inbox", def = "{'participantIds': 1, 'updatedAt': -1, '_id': -1}")
 @Data
 public class Conversation {
     @Id
     private String id;
     private List<String> participantIds = new ArrayList<>();
     private String lastMessage;
+    private String lastSenderId;
+    private LocalDateTime lastMessageAt;
+    // Unread messages per participant id; only ever changed in place with $inc, never by a whole-document save
+    private Map<String, Long> unread = new HashMap<>();
     private String resourceType;
     private String resourceId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    public long unreadFor(String userId) {
+        Long count = unread == null ? null : unread.get(userId);
+        return count == null ? 0 : Math.max(0, count);
+    }
 }
@@ -3,6 +3,7 @@ package com.example.BackEnd_MyTools.Entitys;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -11,6 +12,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Document(collection = "Notification")
+// Mark-all-read and the counter seed filter on (userId, read); the list reads one user's newest first
+@CompoundIndex(name = "user_unread", def = "{'userId': 1, 'read': 1}")
+@CompoundIndex(name = "user_recent", def = "{'userId': 1, 'createdAt': -1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
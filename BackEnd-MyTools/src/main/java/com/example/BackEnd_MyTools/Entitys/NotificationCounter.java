@@ -0,0 +1,24 @@
+package com.example.BackEnd_MyTools.Entitys;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Unread notification count of one user, keyed by user id. Created by the $inc upsert of the user's first
+ * notification (or seeded at startup for older data) and then only changed in place, so the badge poll is a single
+ * read by _id.
+ */
+@Document(collection = "notification_counters")
+@Data
+@NoArgsConstructor
+public class NotificationCounter {
+    @Id
+    private String id;
+    private long unread;
+    private Instant updatedAt;
+}
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -14,6 +15,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Document(collection = "Order")
+// Revenue trends match a createdAt range, either store-wide or on one seller's lines
+@CompoundIndex(name = "recent_status", def = "{'createdAt': 1, 'status': 1}")
+@CompoundIndex(name = "seller_recent", def = "{'items.ownerId': 1, 'createdAt': 1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,28 +1,53 @@
 package com.example.BackEnd_MyTools.Entitys;
 
+import java.text.Normalizer;
 import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
-import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
-import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import lombok.Data;
 
 @Document(collection = "Product")
+@CompoundIndexes({
+        // Listing filters (equality first, then the createdAt/_id sort used by keyset paging)
+        @CompoundIndex(name = "visible_category_available_recent",
+                def = "{'hidden': 1, 'categoryId': 1, 'isavailable': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "visible_mark_available_recent",
+                def = "{'hidden': 1, 'markId': 1, 'isavailable': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "visible_available_recent",
+                def = "{'hidden': 1, 'isavailable': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "owner_recent", def = "{'ownerId': 1, 'createdAt': -1, '_id': -1}"),
+        // Smart search: price is a range, so it comes after the equality keys
+        @CompoundIndex(name = "visible_available_category_price",
+                def = "{'hidden': 1, 'isavailable': 1, 'categoryId': 1, 'price': 1}"),
+        @CompoundIndex(name = "visible_available_city_recent",
+                def = "{'hidden': 1, 'isavailable': 1, 'cityKey': 1, 'createdAt': -1, '_id': -1}"),
+        // The only 2dsphere index: location leads, so plain $nearSphere / $geoWithin queries use it too
+        @CompoundIndex(name = "location_visible_category",
+                def = "{'location': '2dsphere', 'hidden': 1, 'categoryId': 1}")
+})
 @Data
 public class Product {
     @Id
     public String id;
 
+    @TextIndexed(weight = 3)
     public String name;
     public int categoryId;
     public int markId;
     public int serieNum;
+    @TextIndexed
     public String description;
     public int price;
+    @TextIndexed(weight = 2)
     public List<String> tags;
     public String ownerId; // keyclock sub
     public int conditionId;
@@ -36,13 +61,31 @@ public class Product {
 
     // Geolocation listing support
     public String city;
+    // Normalized copy of city for equality filters; maintained by setCity
+    public String cityKey;
     public Double latitude;
     public Double longitude;
 
-    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
     public GeoJsonPoint location;
 
     // Moderation/admin panel support
     public boolean hidden;
     public String moderationStatus;
+
+    // Relevance of a $text match; populated only by text searches, never persisted
+    @TextScore
+    public Float score;
+
+    public void setCity(String city) {
+        this.city = city;
+        this.cityKey = cityKey(city);
+    }
+
+    /** "  fès " and "FES" share the key FES: accents stripped, whitespace collapsed, upper-cased. */
+    public static String cityKey(String city) {
+        if (city == null || city.isBlank())
+            return null;
+        String plain = Normalizer.normalize(city.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return plain.replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+    }
 }
@@ -4,11 +4,14 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
 // Question.java
 @Document(collection = "Question")
+// Feed order: newest first, _id breaks ties
+@CompoundIndex(name = "recent", def = "{'createdAt': -1, '_id': -1}")
 @Data
 public class Question {
 
@@ -0,0 +1,39 @@
+package com.example.BackEnd_MyTools.Entitys;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Booked-day bitmap of one resource for one calendar year: bit {@code dayOfYear - 1} is set when the day is
+ * held. Stored as six 64-bit words so nodes can flip bits with atomic $bit updates.
+ */
+@Document(collection = "ResourceAvailability")
+@Data
+@NoArgsConstructor
+public class ResourceAvailability {
+    public static final int WORDS = 6;
+
+    @Id
+    private String id;
+
+    private Booking.ResourceType resourceType;
+    private String resourceId;
+    private int year;
+    private long w0;
+    private long w1;
+    private long w2;
+    private long w3;
+    private long w4;
+    private long w5;
+
+    public long[] words() {
+        return new long[] { w0, w1, w2, w3, w4, w5 };
+    }
+
+    public static String key(Booking.ResourceType resourceType, String resourceId, int year) {
+        return resourceType + ":" + resourceId + ":" + year;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.BackEnd_MyTools.Kafka.Events;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class UserDestinationEvent {
+    private String originNodeId;  // node that already delivered to its own sessions
+    private String userId;
+    private String destination;   // e.g. /queue/notifications
+    private String payload;       // JSON exactly as the origin node's STOMP converter wrote it
+    private LocalDateTime createdAt;
+}
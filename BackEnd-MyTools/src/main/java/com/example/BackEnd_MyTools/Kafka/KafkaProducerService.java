@@ -1,5 +1,7 @@
 package com.example.BackEnd_MyTools.Kafka;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -9,6 +11,7 @@ import com.example.BackEnd_MyTools.Kafka.Events.*;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -16,6 +19,7 @@ import java.util.UUID;
 public class KafkaProducerService{
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
 
     /* ── Notifications ── */
     public void sendNotification(String userId, String type,
@@ -31,13 +35,13 @@ public class KafkaProducerService{
             .createdAt(LocalDateTime.now())
             .build();
 
-        kafkaTemplate.send(KafkaTopics.NOTIFICATIONS, userId, event);
+        send(KafkaTopics.NOTIFICATIONS, userId, event);
         log.info("Notification sent → userId={} type={}", userId, type);
     }
 
     /* ── Orders ── */
     public void sendOrderEvent(OrderEvent event) {
-        kafkaTemplate.send(KafkaTopics.ORDERS, event.getOrderId(), event);
+        send(KafkaTopics.ORDERS, event.getOrderId(), event);
         log.info("Order event sent → orderId={} status={}", event.getOrderId(), event.getStatus());
     }
 
@@ -52,7 +56,7 @@ public class KafkaProducerService{
             .occurredAt(LocalDateTime.now())
             .build();
 
-        kafkaTemplate.send(KafkaTopics.ACTIVITY, userId, event);
+        send(KafkaTopics.ACTIVITY, userId, event);
     }
 
     /* ── Analytics ── */
@@ -64,12 +68,28 @@ public class KafkaProducerService{
             .occurredAt(LocalDateTime.now())
             .build();
 
-        kafkaTemplate.send(KafkaTopics.ANALYTICS, userId, event);
+        send(KafkaTopics.ANALYTICS, userId, event);
     }
 
     /* ── Messages ── */
     public void sendMessage(MessageEvent event) {
-        kafkaTemplate.send(KafkaTopics.MESSAGES, event.getConversationId(), event);
+        send(KafkaTopics.MESSAGES, event.getConversationId(), event);
         log.info("Message sent → conversationId={}", event.getConversationId());
     }
-}
\ No newline at end of file
+
+    /* ── WebSocket relay ── */
+    public void sendUserDestination(UserDestinationEvent event) {
+        send(KafkaTopics.NOTIFICATIONS_RELAY, event.getUserId(), event);
+    }
+
+    // Send latency runs from the call until the broker acknowledges (or the send fails)
+    private void send(String topic, String key, Object event) {
+        long start = System.nanoTime();
+        kafkaTemplate.send(topic, key, event).whenComplete((result, ex) -> Timer.builder("mytools.kafka.send")
+                .description("Time until the broker acknowledged a produced event")
+                .tag("topic", topic)
+                .tag("result", ex == null ? "success" : "failure")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+}
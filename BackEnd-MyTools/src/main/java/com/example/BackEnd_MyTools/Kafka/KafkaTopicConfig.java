@@ -1,6 +1,7 @@
 package com.example.BackEnd_MyTools.Kafka;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -23,4 +24,9 @@ public class KafkaTopicConfig {
     @Bean public NewTopic messagesTopic() {
         return TopicBuilder.name(KafkaTopics.MESSAGES).partitions(3).replicas(1).build();
     }
+    // WebSocket pushes are useless after a few minutes, so the relay keeps little history
+    @Bean public NewTopic notificationsRelayTopic() {
+        return TopicBuilder.name(KafkaTopics.NOTIFICATIONS_RELAY).partitions(3).replicas(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "3600000").build();
+    }
 }
\ No newline at end of file
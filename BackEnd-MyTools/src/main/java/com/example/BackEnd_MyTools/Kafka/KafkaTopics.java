@@ -8,4 +8,5 @@ public final class KafkaTopics {
     public static final String ACTIVITY       = "mytools.activity";
     public static final String ANALYTICS      = "mytools.analytics";
     public static final String MESSAGES       = "mytools.messages";
+    public static final String NOTIFICATIONS_RELAY = "mytools.notifications.relay";
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.example.BackEnd_MyTools.Kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+
+import com.example.BackEnd_MyTools.Kafka.Events.UserDestinationEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers /user/... pushes across backend nodes. The simple broker and the {@link SimpUserRegistry} only know
+ * the sessions connected to this JVM, so a push is delivered locally and also published to
+ * {@link KafkaTopics#NOTIFICATIONS_RELAY}. Every node reads that topic in its own consumer group and delivers to
+ * the user only when its own registry has a session for them. The payload is converted to JSON once, on the
+ * origin node, so every node sends the same bytes.
+ */
+@Slf4j
+@Component
+public class UserDestinationRelay {
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplateProvider;
+    private final ObjectProvider<SimpUserRegistry> userRegistryProvider;
+    private final ObjectProvider<KafkaProducerService> kafkaProducerProvider;
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public UserDestinationRelay(ObjectProvider<SimpMessagingTemplate> messagingTemplateProvider,
+            ObjectProvider<SimpUserRegistry> userRegistryProvider,
+            ObjectProvider<KafkaProducerService> kafkaProducerProvider,
+            @Value("${mytools.ws-relay.enabled:true}") boolean enabled) {
+        this.messagingTemplateProvider = messagingTemplateProvider;
+        this.userRegistryProvider = userRegistryProvider;
+        this.kafkaProducerProvider = kafkaProducerProvider;
+        this.enabled = enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // One group per node so every node sees every push; a fresh group starts at the latest offset
+    public String getGroupId() {
+        return "mytools-ws-relay-" + nodeId;
+    }
+
+    /** Drop-in for {@link SimpMessagingTemplate#convertAndSendToUser} that also reaches other nodes. */
+    public void convertAndSendToUser(String userId, String destination, Object payload) {
+        SimpMessagingTemplate messagingTemplate = messagingTemplateProvider.getIfAvailable();
+        if (messagingTemplate == null)
+            return;
+        if (!enabled) {
+            messagingTemplate.convertAndSendToUser(userId, destination, payload);
+            return;
+        }
+        byte[] json = toJson(messagingTemplate, payload);
+        if (json == null) {
+            log.warn("Cannot relay {} payload to {}", payload.getClass().getSimpleName(), destination);
+            messagingTemplate.convertAndSendToUser(userId, destination, payload);
+            return;
+        }
+        if (hasLocalSession(userId))
+            deliver(messagingTemplate, userId, destination, json);
+        KafkaProducerService kafkaProducer = kafkaProducerProvider.getIfAvailable();
+        if (kafkaProducer == null)
+            return;
+        try {
+            kafkaProducer.sendUserDestination(UserDestinationEvent.builder()
+                    .originNodeId(nodeId)
+                    .userId(userId)
+                    .destination(destination)
+                    .payload(new String(json, StandardCharsets.UTF_8))
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to relay push to {} → {}", destination, ex.getMessage());
+        }
+    }
+
+    @KafkaListener(topics = KafkaTopics.NOTIFICATIONS_RELAY, groupId = "#{__listener.groupId}",
+            autoStartup = "${mytools.ws-relay.enabled:true}", properties = "auto.offset.reset=latest")
+    public void relay(UserDestinationEvent event) {
+        if (nodeId.equals(event.getOriginNodeId()) || !hasLocalSession(event.getUserId()))
+            return;
+        SimpMessagingTemplate messagingTemplate = messagingTemplateProvider.getIfAvailable();
+        if (messagingTemplate != null)
+            deliver(messagingTemplate, event.getUserId(), event.getDestination(),
+                    event.getPayload().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean hasLocalSession(String userId) {
+        SimpUserRegistry userRegistry = userRegistryProvider.getIfAvailable();
+        // Without a registry there is no way to tell, so deliver and let the broker drop it
+        return userRegistry == null || userRegistry.getUser(userId) != null;
+    }
+
+    private static byte[] toJson(SimpMessagingTemplate messagingTemplate, Object payload) {
+        MessageHeaders headers = new MessageHeaders(
+                Map.<String, Object>of(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON));
+        Message<?> message = messagingTemplate.getMessageConverter().toMessage(payload, headers);
+        return message != null && message.getPayload() instanceof byte[] bytes ? bytes : null;
+    }
+
+    // Already-serialized JSON goes straight to the broker channel, past the converters
+    private static void deliver(SimpMessagingTemplate messagingTemplate, String userId, String destination,
+            byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(messagingTemplate.getUserDestinationPrefix()
+                + StringUtils.replace(userId, "/", "%2F") + destination,
+                MessageBuilder.createMessage(json, accessor.getMessageHeaders()));
+    }
+}
@@ -1,12 +1,21 @@
 package com.example.BackEnd_MyTools.Logging;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
-import java.time.LocalDateTime;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import java.time.Instant;
 
+/**
+ * One request in the api_request_logs time-series collection (see RequestLogCollectionManager), bucketed by
+ * {@code meta} and expired by TTL.
+ */
 @Data
-@Document(collection = "api_logs")
+@Document(collection = "api_request_logs")
+@TimeSeries(collection = "api_request_logs", timeField = "timestamp", metaField = "meta", granularity = Granularity.SECONDS)
 public class LogEntry {
     @Id
     private String id;
@@ -21,13 +30,23 @@ public class LogEntry {
     private String username;         // From Keycloak
     private String userEmail;        // From Keycloak (if available)
     private String userRoles;        // From Keycloak (if available)
-    private LocalDateTime timestamp; // When it happened
+    private Instant timestamp;       // When it happened (UTC)
     private String errorMessage;     // Error description
     private String stackTrace;       // Full error details
     private String application;      // "BusinessAPI", "SpringDoc", "Actuator"
+    private Meta meta;               // Series key, set when the response completes
+    private MongoProfile mongoProfile; // Only in Mongo diagnostic mode
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Meta {
+        private String application;
+        private String endpoint;     // Route pattern, e.g. /products/{id}
+    }
 
     public LogEntry() {
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = Instant.now();
     }
 }
 // package com.example.BackEnd_MyTools.Logging;
@@ -0,0 +1,81 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer queue over a power-of-two ring. Each slot carries a sequence number telling
+ * producers and the consumer whose turn it is, so offer and poll only CAS the tail or head counter and never
+ * block. offer fails instead of waiting when the ring is full.
+ */
+final class LogRingBuffer<T> {
+    private final int mask;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    LogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+    }
+
+    boolean offer(T item) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long lag = sequences.get(index) - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, item);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (lag < 0) {
+                return false;
+            }
+        }
+    }
+
+    T poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) (position & mask);
+            long lag = sequences.get(index) - (position + 1);
+            if (lag == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    T item = slots.getAndSet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return item;
+                }
+            } else if (lag < 0) {
+                return null;
+            }
+        }
+    }
+
+    /** Moves up to max items into target; returns how many were moved. */
+    int drainTo(List<T> target, int max) {
+        int drained = 0;
+        T item;
+        while (drained < max && (item = poll()) != null) {
+            target.add(item);
+            drained++;
+        }
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, Math.min(capacity(), tail.get() - head.get()));
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -2,11 +2,13 @@ package com.example.BackEnd_MyTools.Logging;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
-import java.time.LocalDateTime;
+import org.springframework.web.servlet.HandlerMapping;
+import java.time.Instant;
 import java.util.Arrays;
 import static com.example.BackEnd_MyTools.Security.SecurityConfig.getUserInfo;
 
@@ -15,13 +17,23 @@ import static com.example.BackEnd_MyTools.Security.SecurityConfig.getUserInfo;
 @RequiredArgsConstructor
 public class LoggingService {
 
-    private final MongoTemplate mongoTemplate;
+    static final String LOG_ENTRY_ATTRIBUTE = "logEntry";
+    static final String UNMATCHED_ROUTE = "(unmatched)";
+    static final String MONGO_COMMANDS_ATTRIBUTE = "logEntry.mongoCommands";
+
+    private final RequestLogWriter requestLogWriter;
+    private final RequestLogSampler requestLogSampler;
+    private final RequestLogRollups requestLogRollups;
+    private final MongoCommandTracker mongoCommandTracker;
+    private final MeterRegistry meterRegistry;
 
     /**
-     * Logs EVERY incoming request - ALWAYS saves to MongoDB
+     * Starts the log entry of EVERY incoming request. The entry stays on the request until
+     * {@link #logCompleteResponse} hands it to the {@link RequestLogWriter}, so each request is written once.
      */
     public void logCompleteRequest(HttpServletRequest request) {
         try {
+            mongoCommandTracker.begin();
             LogEntry logEntry = new LogEntry();
 
             // Capture request details
@@ -30,7 +42,7 @@ public class LoggingService {
             logEntry.setRequestParams(request.getQueryString());
             logEntry.setClientIp(getClientIp(request));
             // logEntry.setUserAgent(request.getHeader("User-Agent"));
-            logEntry.setTimestamp(LocalDateTime.now());
+            logEntry.setTimestamp(Instant.now());
 
             // User information from Keycloak
             String username = getUserInfo();
@@ -39,9 +51,7 @@ public class LoggingService {
             // Categorize the request type
             logEntry.setApplication(categorizeRequest(request.getRequestURI()));
 
-            // ⭐ ALWAYS SAVE TO MONGODB - regardless of log level
-            mongoTemplate.save(logEntry);
-            request.setAttribute("logEntryId", logEntry.getId());
+            request.setAttribute(LOG_ENTRY_ATTRIBUTE, logEntry);
             request.setAttribute("startTime", System.currentTimeMillis());
 
             // ⭐ INTELLIGENT CONSOLE LOGGING - depends on log level
@@ -63,41 +73,65 @@ public class LoggingService {
     }
 
     /**
-     * Logs EVERY response - ALWAYS updates MongoDB
+     * Completes the request's entry with status and duration and, if the {@link RequestLogPolicy} keeps it,
+     * queues it for the batched writer
      */
     public void logCompleteResponse(HttpServletRequest request, HttpServletResponse response, long duration) {
         try {
-            String logEntryId = (String) request.getAttribute("logEntryId");
-            if (logEntryId != null) {
-                LogEntry logEntry = mongoTemplate.findById(logEntryId, LogEntry.class);
-                if (logEntry != null) {
-                    // ⭐ ALWAYS UPDATE MONGODB
+            resume(request);
+            int mongoCommands = mongoCommandTracker.commands();
+            MongoProfile mongoProfile = mongoCommandTracker.snapshot();
+            mongoCommandTracker.end();
+            LogEntry logEntry = takeLogEntry(request);
+            if (logEntry != null) {
+                // An exception recorded by logError keeps its error status if the response still says 2xx
+                if (logEntry.getErrorMessage() == null || response.getStatus() >= 400) {
                     logEntry.setStatusCode(response.getStatus());
-                    logEntry.setDurationMs(duration);
-                    mongoTemplate.save(logEntry);
-
-                    // ⭐ INTELLIGENT CONSOLE LOGGING
-                    if (response.getStatus() >= 400) {
-                        // Errors always visible
-                        log.error("❌ ERROR: {} {} - Status: {} - Duration: {}ms",
-                                request.getMethod(), request.getRequestURI(),
-                                response.getStatus(), duration);
-                    } else if (duration > 5000) {
-                        // Slow requests always visible as warnings
-                        log.warn("⚠️ SLOW: {} {} - Status: {} - Duration: {}ms",
-                                request.getMethod(), request.getRequestURI(),
-                                response.getStatus(), duration);
-                    } else if (isImportantRequest(request)) {
-                        // Business APIs visible in production
-                        log.info("✅ SUCCESS: {} {} - Status: {} - Duration: {}ms",
-                                request.getMethod(), request.getRequestURI(),
-                                response.getStatus(), duration);
-                    } else {
-                        // Other requests only in DEBUG mode
-                        log.debug("✅ Response: {} {} - Status: {} - Duration: {}ms",
-                                request.getMethod(), request.getRequestURI(),
-                                response.getStatus(), duration);
-                    }
+                }
+                logEntry.setDurationMs(duration);
+                String route = routeOf(request);
+                logEntry.setMeta(new LogEntry.Meta(logEntry.getApplication(), route));
+                // Rollups count every request, including the ones sampling does not store
+                requestLogRollups.record(logEntry.getMethod(), route, logEntry.getApplication(), duration,
+                        logEntry.getStatusCode() != null && logEntry.getStatusCode() >= 400);
+                DistributionSummary.builder("mongodb.request.commands")
+                        .description("Mongo round trips made by one HTTP request")
+                        .tag("method", logEntry.getMethod())
+                        .tag("uri", route)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(mongoCommands);
+                logEntry.setMongoProfile(mongoProfile);
+                if (mongoProfile != null && mongoProfile.hasRepeatedQueries()) {
+                    // Repeated query shapes within one request usually mean a lookup inside a loop
+                    log.warn("🔁 N+1 suspect: {} {} - {}", request.getMethod(), request.getRequestURI(),
+                            mongoProfile.toHeaderValue());
+                }
+                if (requestLogSampler.shouldPersist(logEntry)) {
+                    requestLogWriter.submit(logEntry);
+                }
+
+                // ⭐ INTELLIGENT CONSOLE LOGGING
+                if (response.getStatus() >= 400) {
+                    // Errors always visible
+                    log.error("❌ ERROR: {} {} - Status: {} - Duration: {}ms",
+                            request.getMethod(), request.getRequestURI(),
+                            response.getStatus(), duration);
+                } else if (duration > 5000) {
+                    // Slow requests always visible as warnings
+                    log.warn("⚠️ SLOW: {} {} - Status: {} - Duration: {}ms",
+                            request.getMethod(), request.getRequestURI(),
+                            response.getStatus(), duration);
+                } else if (isImportantRequest(request)) {
+                    // Business APIs visible in production
+                    log.info("✅ SUCCESS: {} {} - Status: {} - Duration: {}ms",
+                            request.getMethod(), request.getRequestURI(),
+                            response.getStatus(), duration);
+                } else {
+                    // Other requests only in DEBUG mode
+                    log.debug("✅ Response: {} {} - Status: {} - Duration: {}ms",
+                            request.getMethod(), request.getRequestURI(),
+                            response.getStatus(), duration);
                 }
             }
         } catch (Exception e) {
@@ -107,40 +141,54 @@ public class LoggingService {
     }
 
     /**
-     * Logs errors - ALWAYS saves full details to MongoDB and console
+     * Parks the request's Mongo command count on the request when its response completes on another thread, such
+     * as a {@code StreamingResponseBody}; {@link #resume} picks it up there and when the response completes.
+     */
+    public void suspend(HttpServletRequest request) {
+        MongoCommandTracker.RequestCommands state = mongoCommandTracker.detach();
+        if (state != null)
+            request.setAttribute(MONGO_COMMANDS_ATTRIBUTE, state);
+    }
+
+    public void resume(HttpServletRequest request) {
+        if (request.getAttribute(MONGO_COMMANDS_ATTRIBUTE) instanceof MongoCommandTracker.RequestCommands state)
+            mongoCommandTracker.attach(state);
+    }
+
+    /**
+     * Logs errors - adds full details to the request's entry, which is written when the response completes.
+     * Errors raised outside a logged request get an entry of their own, queued right away.
      */
     public void logError(HttpServletRequest request, HttpServletResponse response, Exception ex, long duration) {
         try {
-            String logEntryId = (String) request.getAttribute("logEntryId");
-            LogEntry logEntry;
+            LogEntry logEntry = (LogEntry) request.getAttribute(LOG_ENTRY_ATTRIBUTE);
+            boolean standalone = logEntry == null;
 
-            if (logEntryId != null) {
-                logEntry = mongoTemplate.findById(logEntryId, LogEntry.class);
-            } else {
+            if (standalone) {
                 logEntry = new LogEntry();
                 logEntry.setMethod(request.getMethod());
                 logEntry.setEndpoint(request.getRequestURI());
                 logEntry.setClientIp(getClientIp(request));
                 logEntry.setUsername(getUserInfo());
                 logEntry.setApplication(categorizeRequest(request.getRequestURI()));
-                logEntry.setTimestamp(LocalDateTime.now());
+                logEntry.setTimestamp(Instant.now());
             }
 
-            if (logEntry != null) {
-                // ⭐ ALWAYS SAVE COMPLETE ERROR DETAILS TO MONGODB
-                logEntry.setStatusCode(response != null ? response.getStatus() : 500);
-                logEntry.setDurationMs(duration);
-                logEntry.setErrorMessage(limitErreurMsg(ex.getMessage(), 30));
-                logEntry.setStackTrace(limitErreurMsg(getStackTrace(ex), 30));
-                mongoTemplate.save(logEntry);
-
-                // ⭐ ALWAYS LOG ERRORS TO CONSOLE (with stack trace in log file)
-                log.error("💥 EXCEPTION: {} {} - Status: {} - Error: {} - Duration: {}ms - User: {} - IP: {}",
-                        request.getMethod(), request.getRequestURI(),
-                        response != null ? response.getStatus() : 500,
-                        limitErreurMsg(ex.getMessage(), 5), duration, getUserInfo(), getClientIp(request));
-                // , ex); // Stack trace goes to log file
+            int status = response != null && response.getStatus() >= 400 ? response.getStatus() : 500;
+            logEntry.setStatusCode(status);
+            logEntry.setDurationMs(duration);
+            logEntry.setErrorMessage(limitErreurMsg(ex.getMessage(), 30));
+            logEntry.setStackTrace(limitErreurMsg(getStackTrace(ex), 30));
+            if (standalone) {
+                logEntry.setMeta(new LogEntry.Meta(logEntry.getApplication(), routeOf(request)));
+                requestLogWriter.submit(logEntry);
             }
+
+            // ⭐ ALWAYS LOG ERRORS TO CONSOLE (with stack trace in log file)
+            log.error("💥 EXCEPTION: {} {} - Status: {} - Error: {} - Duration: {}ms - User: {} - IP: {}",
+                    request.getMethod(), request.getRequestURI(), status,
+                    limitErreurMsg(ex.getMessage(), 5), duration, getUserInfo(), getClientIp(request));
+            // , ex); // Stack trace goes to log file
         } catch (Exception e) {
             log.error("❌ Failed to log error: {} {}",
                     request.getMethod(), request.getRequestURI());
@@ -165,6 +213,18 @@ public class LoggingService {
     }
     // Helper methods
 
+    // Route pattern chosen by Spring MVC, so /products/P001 and /products/P002 share one series
+    private String routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : UNMATCHED_ROUTE;
+    }
+
+    private LogEntry takeLogEntry(HttpServletRequest request) {
+        LogEntry logEntry = (LogEntry) request.getAttribute(LOG_ENTRY_ATTRIBUTE);
+        request.removeAttribute(LOG_ENTRY_ATTRIBUTE);
+        return logEntry;
+    }
+
     private boolean isImportantRequest(HttpServletRequest request) {
         String path = request.getRequestURI();
         return path.startsWith("/api/") ||
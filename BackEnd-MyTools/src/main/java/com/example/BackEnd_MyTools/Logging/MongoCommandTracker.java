@@ -0,0 +1,169 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+/**
+ * Attributes Mongo commands to the current HTTP request. The synchronous driver notifies listeners on the
+ * calling thread, so thread-local state opened by {@link LoggingService} sees every round trip of its request;
+ * commands from other threads (schedulers, Kafka listeners) are not counted. Async responses carry the state to
+ * their worker thread through {@link RequestLoggingAsyncInterceptor}.
+ * <p>
+ * Every request gets a command count. In diagnostic mode ({@code mytools.mongo-profiler.enabled}) the tracker
+ * also records time, calls per collection and query shapes, and reports shapes repeated at least
+ * {@code mytools.mongo-profiler.repeat-threshold} times.
+ */
+@Component
+public class MongoCommandTracker implements CommandListener {
+    private static final int MAX_SHAPE_LENGTH = 160;
+
+    private final boolean profiling;
+    private final int repeatThreshold;
+    private final ThreadLocal<RequestCommands> current = new ThreadLocal<>();
+
+    public MongoCommandTracker(@Value("${mytools.mongo-profiler.enabled:false}") boolean profiling,
+            @Value("${mytools.mongo-profiler.repeat-threshold:5}") int repeatThreshold) {
+        this.profiling = profiling;
+        this.repeatThreshold = Math.max(2, repeatThreshold);
+    }
+
+    /** Command state of one request, handed between threads while its response completes asynchronously. */
+    static final class RequestCommands {
+        int commands;
+        long nanos;
+        final Map<String, Integer> perCollection = new LinkedHashMap<>();
+        final Map<String, Integer> shapes = new HashMap<>();
+    }
+
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    public void begin() {
+        current.set(new RequestCommands());
+    }
+
+    /** Commands since {@link #begin()} on this thread. */
+    public int commands() {
+        RequestCommands state = current.get();
+        return state == null ? 0 : state.commands;
+    }
+
+    /** Profile of the commands so far, or null outside diagnostic mode or a tracked request. */
+    public MongoProfile snapshot() {
+        RequestCommands state = current.get();
+        if (!profiling || state == null)
+            return null;
+        MongoProfile profile = new MongoProfile();
+        profile.setCommands(state.commands);
+        profile.setMongoMs(TimeUnit.NANOSECONDS.toMillis(state.nanos));
+        profile.getPerCollection().putAll(state.perCollection);
+        profile.setRepeatedQueries(state.shapes.entrySet().stream()
+                .filter(e -> e.getValue() >= repeatThreshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .map(e -> new MongoProfile.RepeatedQuery(e.getKey(), e.getValue()))
+                .collect(Collectors.toList()));
+        return profile;
+    }
+
+    public void end() {
+        current.remove();
+    }
+
+    /** Takes this thread's request state off the thread, for {@link #attach} on the thread that continues it. */
+    RequestCommands detach() {
+        RequestCommands state = current.get();
+        current.remove();
+        return state;
+    }
+
+    void attach(RequestCommands state) {
+        if (state != null)
+            current.set(state);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        RequestCommands state = current.get();
+        if (state == null)
+            return;
+        state.commands++;
+        if (!profiling)
+            return;
+        String collection = collectionOf(event.getCommandName(), event.getCommand());
+        state.perCollection.merge(collection, 1, Integer::sum);
+        state.shapes.merge(shapeOf(event.getCommandName(), collection, event.getCommand()), 1, Integer::sum);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        addElapsed(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        addElapsed(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void addElapsed(long nanos) {
+        RequestCommands state = current.get();
+        if (profiling && state != null)
+            state.nanos += nanos;
+    }
+
+    static String collectionOf(String commandName, BsonDocument command) {
+        BsonValue target = command.get("getMore".equals(commandName) ? "collection" : commandName);
+        return target != null && target.isString() ? target.asString().getValue() : commandName;
+    }
+
+    /** Command, collection and query keys with every value replaced by ?, e.g. {@code find Product {_id: ?}}. */
+    static String shapeOf(String commandName, String collection, BsonDocument command) {
+        BsonValue query = switch (commandName) {
+            case "find" -> command.get("filter");
+            case "count", "distinct", "findAndModify" -> command.get("query");
+            case "aggregate" -> command.get("pipeline");
+            case "update" -> firstStatementQuery(command.get("updates"));
+            case "delete" -> firstStatementQuery(command.get("deletes"));
+            default -> null;
+        };
+        String shape = commandName + " " + collection + (query == null ? "" : " " + blank(query));
+        return shape.length() > MAX_SHAPE_LENGTH ? shape.substring(0, MAX_SHAPE_LENGTH) + "..." : shape;
+    }
+
+    // update/delete carry a list of statements; the first one's q stands for the batch
+    private static BsonValue firstStatementQuery(BsonValue statements) {
+        if (statements == null || !statements.isArray() || statements.asArray().isEmpty())
+            return null;
+        BsonValue first = statements.asArray().get(0);
+        return first.isDocument() ? first.asDocument().get("q") : null;
+    }
+
+    private static String blank(BsonValue value) {
+        if (value.isDocument()) {
+            return value.asDocument().entrySet().stream()
+                    .map(e -> e.getKey() + ": " + blank(e.getValue()))
+                    .collect(Collectors.joining(", ", "{", "}"));
+        }
+        if (value.isArray()) {
+            BsonArray array = value.asArray();
+            // $in lists and similar collapse to one element so different lengths share a shape
+            return array.isEmpty() ? "[]" : "[" + blank(array.get(0)) + "]";
+        }
+        return "?";
+    }
+}
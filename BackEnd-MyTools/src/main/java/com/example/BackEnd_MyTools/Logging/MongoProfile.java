@@ -0,0 +1,52 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mongo activity of one HTTP request, collected by {@link MongoCommandTracker} in diagnostic mode. A query
+ * shape (command, collection and filter with values blanked) that repeats at least the configured threshold is
+ * listed in {@code repeatedQueries}: the usual signature of an N+1 loop.
+ */
+@Data
+@NoArgsConstructor
+public class MongoProfile {
+    private int commands;
+    private long mongoMs;
+    private Map<String, Integer> perCollection = new LinkedHashMap<>();
+    private List<RepeatedQuery> repeatedQueries = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RepeatedQuery {
+        private String shape;
+        private int count;
+    }
+
+    public boolean hasRepeatedQueries() {
+        return !repeatedQueries.isEmpty();
+    }
+
+    /** Compact single-line form for the X-Mongo-Profile response header. */
+    public String toHeaderValue() {
+        StringBuilder header = new StringBuilder()
+                .append("commands=").append(commands)
+                .append("; ms=").append(mongoMs);
+        if (!perCollection.isEmpty())
+            header.append("; collections=").append(perCollection.entrySet().stream()
+                    .map(e -> e.getKey() + ":" + e.getValue()).collect(Collectors.joining(",")));
+        if (!repeatedQueries.isEmpty())
+            header.append("; repeated=").append(repeatedQueries.stream()
+                    .map(q -> q.getCount() + "x " + q.getShape()).collect(Collectors.joining(" | ")));
+        // Header values must stay printable ASCII
+        return header.toString().replaceAll("[^\\x20-\\x7E]", "?");
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * In Mongo diagnostic mode, adds the request's {@link MongoProfile} as an X-Mongo-Profile header. It runs just
+ * before the body is written, because headers can no longer change once the filter chain has returned. MVC test
+ * slices load this advice without the tracker, so it does nothing when none is available.
+ */
+@ControllerAdvice
+public class MongoProfileHeaderAdvice implements ResponseBodyAdvice<Object> {
+    static final String HEADER = "X-Mongo-Profile";
+
+    private final ObjectProvider<MongoCommandTracker> mongoCommandTrackerProvider;
+
+    public MongoProfileHeaderAdvice(ObjectProvider<MongoCommandTracker> mongoCommandTrackerProvider) {
+        this.mongoCommandTrackerProvider = mongoCommandTrackerProvider;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        MongoCommandTracker mongoCommandTracker = mongoCommandTrackerProvider.getIfAvailable();
+        return mongoCommandTracker != null && mongoCommandTracker.isProfiling();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        MongoCommandTracker mongoCommandTracker = mongoCommandTrackerProvider.getIfAvailable();
+        MongoProfile profile = mongoCommandTracker == null ? null : mongoCommandTracker.snapshot();
+        if (profile != null)
+            response.getHeaders().set(HEADER, profile.toHeaderValue());
+        return body;
+    }
+}
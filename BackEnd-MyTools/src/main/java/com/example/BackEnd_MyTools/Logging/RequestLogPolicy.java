@@ -0,0 +1,53 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Which finished requests are stored in api_request_logs. Errors and slow requests are always kept; everything else is
+ * sampled by the first matching route rule, then by its category rate ("BusinessAPI", "Actuator", ...), then by
+ * defaultSampleRate. Rates run from 0 (never store) to 1 (always store).
+ */
+@Document(collection = "request_log_policy")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestLogPolicy {
+    public static final String ID = "default";
+
+    @Id
+    private String id = ID;
+
+    private long slowThresholdMs = 5000;
+    private double defaultSampleRate = 1.0;
+    private Map<String, Double> categorySampleRates = new LinkedHashMap<>();
+    private List<RouteRule> routes = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RouteRule {
+        private String pattern;   // Ant-style path, e.g. /api/products/**
+        private String method;    // null matches every method
+        private double sampleRate;
+    }
+
+    public static RequestLogPolicy defaults() {
+        RequestLogPolicy policy = new RequestLogPolicy();
+        policy.getCategorySampleRates().put("BusinessAPI", 1.0);
+        policy.getCategorySampleRates().put("Other", 1.0);
+        policy.getCategorySampleRates().put("Actuator", 0.0);
+        policy.getCategorySampleRates().put("SpringDoc", 0.0);
+        policy.getCategorySampleRates().put("Static", 0.0);
+        return policy;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Requests of one endpoint (method + route pattern) during one minute. Latencies are kept as counts per fixed
+ * bucket rather than percentiles, so every node can $inc into the same document and percentiles of any window
+ * are computed by adding buckets.
+ */
+@Document(collection = "api_log_rollups")
+@Data
+@NoArgsConstructor
+public class RequestLogRollup {
+    /** Upper bound (inclusive, ms) of each latency bucket; one more bucket holds everything slower. */
+    public static final long[] BUCKET_BOUNDS_MS = { 1, 2, 3, 5, 7, 10, 15, 20, 30, 50, 75, 100, 150, 200, 300, 500,
+            750, 1000, 1500, 2000, 3000, 5000, 7500, 10000, 15000, 30000, 60000 };
+
+    @Id
+    private String id;
+
+    private Instant minute;
+    private String method;
+    private String route;
+    private String application;
+    private long count;
+    private long errors;
+    private long totalMs;
+    private long maxMs;
+    private Map<String, Long> buckets = new HashMap<>();
+
+    public static String key(Instant minute, String method, String route) {
+        return minute.getEpochSecond() / 60 + ":" + method + " " + route;
+    }
+
+    public static int bucketOf(long durationMs) {
+        int index = Arrays.binarySearch(BUCKET_BOUNDS_MS, durationMs);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /** Latency at quantile q, reported as the upper bound of its bucket and capped at the observed maximum. */
+    public static long percentile(long[] bucketCounts, long count, long maxMs, double q) {
+        if (count == 0)
+            return 0;
+        long rank = (long) Math.ceil(q * count);
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank)
+                return i < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[i], maxMs) : maxMs;
+        }
+        return maxMs;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-minute request statistics per endpoint, counted for every request before sampling. Counts accumulate in
+ * memory and are flushed every few seconds as one unordered bulk of $inc upserts into api_log_rollups, so the
+ * admin dashboard reads a few hundred rollup documents instead of scanning raw logs.
+ */
+@Slf4j
+@Component
+public class RequestLogRollups {
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, Accumulator> pending = new ConcurrentHashMap<>();
+
+    public RequestLogRollups(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public record RollupStats(Instant minute, String method, String route, long count, long errors,
+            double errorRate, double avgMs, long p50Ms, long p95Ms, long p99Ms, long maxMs) {
+    }
+
+    private static final class Accumulator {
+        final Instant minute;
+        final String method;
+        final String route;
+        final String application;
+        final long[] buckets = new long[RequestLogRollup.BUCKET_BOUNDS_MS.length + 1];
+        long count;
+        long errors;
+        long totalMs;
+        long maxMs;
+        // Set once flushed; late writers then start a fresh accumulator instead of updating a written one
+        boolean closed;
+
+        Accumulator(Instant minute, String method, String route, String application) {
+            this.minute = minute;
+            this.method = method;
+            this.route = route;
+            this.application = application;
+        }
+    }
+
+    public void record(String method, String route, String application, long durationMs, boolean error) {
+        Instant minute = Instant.now().truncatedTo(ChronoUnit.MINUTES);
+        String key = RequestLogRollup.key(minute, method, route);
+        while (true) {
+            Accumulator accumulator = pending.computeIfAbsent(key,
+                    k -> new Accumulator(minute, method, route, application));
+            synchronized (accumulator) {
+                if (accumulator.closed)
+                    continue;
+                accumulator.count++;
+                if (error)
+                    accumulator.errors++;
+                accumulator.totalMs += durationMs;
+                accumulator.maxMs = Math.max(accumulator.maxMs, durationMs);
+                accumulator.buckets[RequestLogRollup.bucketOf(durationMs)]++;
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mytools.request-log.rollup.flush-ms:10000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty())
+            return;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RequestLogRollup.class);
+        int upserts = 0;
+        for (Map.Entry<String, Accumulator> entry : pending.entrySet()) {
+            Accumulator accumulator = entry.getValue();
+            pending.remove(entry.getKey(), accumulator);
+            synchronized (accumulator) {
+                accumulator.closed = true;
+                Update update = new Update()
+                        .setOnInsert("minute", accumulator.minute)
+                        .setOnInsert("method", accumulator.method)
+                        .setOnInsert("route", accumulator.route)
+                        .setOnInsert("application", accumulator.application)
+                        .inc("count", accumulator.count)
+                        .inc("errors", accumulator.errors)
+                        .inc("totalMs", accumulator.totalMs)
+                        .max("maxMs", accumulator.maxMs);
+                for (int i = 0; i < accumulator.buckets.length; i++)
+                    if (accumulator.buckets[i] > 0)
+                        update.inc("buckets." + i, accumulator.buckets[i]);
+                bulk.upsert(new Query(Criteria.where("id").is(entry.getKey())), update);
+                upserts++;
+            }
+        }
+        if (upserts == 0)
+            return;
+        try {
+            bulk.execute();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to write {} request log rollups: {}", upserts, ex.getMessage());
+        }
+    }
+
+    /** Totals per endpoint over the last {@code window}, busiest first. */
+    public List<RollupStats> endpoints(Duration window) {
+        Map<String, List<RequestLogRollup>> byEndpoint = new LinkedHashMap<>();
+        for (RequestLogRollup rollup : load(window, null, null))
+            byEndpoint.computeIfAbsent(rollup.getMethod() + " " + rollup.getRoute(), k -> new ArrayList<>())
+                    .add(rollup);
+        List<RollupStats> stats = new ArrayList<>();
+        byEndpoint.values().forEach(rollups -> stats.add(merge(null, rollups)));
+        stats.sort(Comparator.comparingLong(RollupStats::count).reversed());
+        return stats;
+    }
+
+    /** One entry per minute of the last {@code window} for a single endpoint, oldest first. */
+    public List<RollupStats> timeline(String method, String route, Duration window) {
+        Map<Instant, List<RequestLogRollup>> byMinute = new LinkedHashMap<>();
+        for (RequestLogRollup rollup : load(window, method, route))
+            byMinute.computeIfAbsent(rollup.getMinute(), k -> new ArrayList<>()).add(rollup);
+        List<RollupStats> stats = new ArrayList<>();
+        byMinute.forEach((minute, rollups) -> stats.add(merge(minute, rollups)));
+        return stats;
+    }
+
+    private List<RequestLogRollup> load(Duration window, String method, String route) {
+        Criteria criteria = Criteria.where("minute").gte(Instant.now().minus(window).truncatedTo(ChronoUnit.MINUTES));
+        if (method != null)
+            criteria.and("method").is(method);
+        if (route != null)
+            criteria.and("route").is(route);
+        return mongoTemplate.find(new Query(criteria).with(Sort.by("minute")), RequestLogRollup.class);
+    }
+
+    static RollupStats merge(Instant minute, List<RequestLogRollup> rollups) {
+        long[] buckets = new long[RequestLogRollup.BUCKET_BOUNDS_MS.length + 1];
+        long count = 0, errors = 0, totalMs = 0, maxMs = 0;
+        for (RequestLogRollup rollup : rollups) {
+            count += rollup.getCount();
+            errors += rollup.getErrors();
+            totalMs += rollup.getTotalMs();
+            maxMs = Math.max(maxMs, rollup.getMaxMs());
+            if (rollup.getBuckets() != null)
+                rollup.getBuckets().forEach((index, n) -> buckets[Integer.parseInt(index)] += n);
+        }
+        RequestLogRollup first = rollups.get(0);
+        return new RollupStats(minute, first.getMethod(), first.getRoute(), count, errors,
+                count == 0 ? 0 : (double) errors / count, count == 0 ? 0 : (double) totalMs / count,
+                RequestLogRollup.percentile(buckets, count, maxMs, 0.50),
+                RequestLogRollup.percentile(buckets, count, maxMs, 0.95),
+                RequestLogRollup.percentile(buckets, count, maxMs, 0.99), maxMs);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies the {@link RequestLogPolicy} to finished requests. The policy is stored in MongoDB and re-read
+ * periodically, so a change made through the admin API reaches every node without a restart.
+ */
+@Slf4j
+@Component
+public class RequestLogSampler {
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private volatile RequestLogPolicy policy = RequestLogPolicy.defaults();
+
+    public RequestLogSampler(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean shouldPersist(LogEntry entry) {
+        RequestLogPolicy current = policy;
+        boolean error = entry.getErrorMessage() != null
+                || (entry.getStatusCode() != null && entry.getStatusCode() >= 400);
+        boolean slow = entry.getDurationMs() != null && entry.getDurationMs() > current.getSlowThresholdMs();
+        boolean repeatedQueries = entry.getMongoProfile() != null && entry.getMongoProfile().hasRepeatedQueries();
+        if (error || slow || repeatedQueries)
+            return true;
+        double rate = sampleRate(current, entry);
+        boolean keep = rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+        if (!keep)
+            meterRegistry.counter("request.logs.sampled.out", "application", String.valueOf(entry.getApplication()))
+                    .increment();
+        return keep;
+    }
+
+    private double sampleRate(RequestLogPolicy current, LogEntry entry) {
+        for (RequestLogPolicy.RouteRule route : current.getRoutes()) {
+            if ((route.getMethod() == null || route.getMethod().equalsIgnoreCase(entry.getMethod()))
+                    && entry.getEndpoint() != null && pathMatcher.match(route.getPattern(), entry.getEndpoint()))
+                return route.getSampleRate();
+        }
+        Double categoryRate = current.getCategorySampleRates().get(entry.getApplication());
+        return categoryRate != null ? categoryRate : current.getDefaultSampleRate();
+    }
+
+    public RequestLogPolicy getPolicy() {
+        return policy;
+    }
+
+    /** Validates and stores a new policy; it applies here immediately and on other nodes at their next reload. */
+    public RequestLogPolicy update(RequestLogPolicy update) {
+        validate(update);
+        update.setId(RequestLogPolicy.ID);
+        RequestLogPolicy saved = mongoTemplate.save(update);
+        policy = saved;
+        return saved;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${mytools.request-log.policy.reload-ms:30000}",
+            initialDelayString = "${mytools.request-log.policy.reload-ms:30000}")
+    public void reload() {
+        try {
+            RequestLogPolicy stored = mongoTemplate.findById(RequestLogPolicy.ID, RequestLogPolicy.class);
+            if (stored != null) {
+                validate(stored);
+                policy = stored;
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Keeping the current request log policy, reload failed: {}", ex.getMessage());
+        }
+    }
+
+    private void validate(RequestLogPolicy candidate) {
+        if (candidate.getSlowThresholdMs() <= 0)
+            throw new IllegalArgumentException("slowThresholdMs must be positive");
+        checkRate(candidate.getDefaultSampleRate(), "defaultSampleRate");
+        if (candidate.getCategorySampleRates() == null)
+            candidate.setCategorySampleRates(new LinkedHashMap<>());
+        if (candidate.getRoutes() == null)
+            candidate.setRoutes(new ArrayList<>());
+        candidate.getCategorySampleRates().forEach((category, rate) -> checkRate(rate, "sample rate of " + category));
+        for (RequestLogPolicy.RouteRule route : candidate.getRoutes()) {
+            if (route.getPattern() == null || !route.getPattern().startsWith("/"))
+                throw new IllegalArgumentException("Route patterns must start with /");
+            checkRate(route.getSampleRate(), "sample rate of " + route.getPattern());
+        }
+    }
+
+    private void checkRate(Double rate, String name) {
+        if (rate == null || rate < 0 || rate > 1)
+            throw new IllegalArgumentException(name + " must be between 0 and 1");
+    }
+}
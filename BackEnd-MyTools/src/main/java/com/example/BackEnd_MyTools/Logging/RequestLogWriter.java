@@ -0,0 +1,140 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persists finished request logs off the request thread. Entries go into a bounded {@link LogRingBuffer}; a
+ * background writer drains it and stores each batch with one insertMany. Request threads never wait: when the
+ * buffer is full the entry is dropped and counted, and past the high-water mark the writer is woken early.
+ */
+@Slf4j
+@Component
+public class RequestLogWriter implements SmartLifecycle {
+    private final MongoTemplate mongoTemplate;
+    private final LogRingBuffer<LogEntry> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int highWaterMark;
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter backpressure;
+    private final Counter failed;
+
+    // Below the web server's start/stop phase (DEFAULT_PHASE - 2048) and its graceful shutdown (DEFAULT_PHASE - 1024):
+    // the writer starts before requests arrive and stops only after in-flight requests have drained
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public RequestLogWriter(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+            @Value("${mytools.request-log.buffer-capacity:8192}") int capacity,
+            @Value("${mytools.request-log.batch-size:500}") int batchSize,
+            @Value("${mytools.request-log.flush-interval:PT0.5S}") Duration flushInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.buffer = new LogRingBuffer<>(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.highWaterMark = buffer.capacity() * 3 / 4;
+        this.written = Counter.builder("request.logs.written").register(meterRegistry);
+        this.dropped = Counter.builder("request.logs.dropped")
+                .description("Entries discarded because the buffer was full").register(meterRegistry);
+        this.backpressure = Counter.builder("request.logs.backpressure")
+                .description("Submits that found the buffer past its high-water mark").register(meterRegistry);
+        this.failed = Counter.builder("request.logs.failed")
+                .description("Entries lost to a failed bulk insert").register(meterRegistry);
+        Gauge.builder("request.logs.pending", buffer, LogRingBuffer::size).register(meterRegistry);
+    }
+
+    /** Queues a finished entry; returns false when it had to be dropped. Never blocks. */
+    public boolean submit(LogEntry entry) {
+        if (!buffer.offer(entry)) {
+            dropped.increment();
+            return false;
+        }
+        if (buffer.size() >= highWaterMark) {
+            backpressure.increment();
+            Thread current = writer;
+            if (current != null)
+                LockSupport.unpark(current);
+        }
+        return true;
+    }
+
+    /** Writes up to one batch; returns the number of entries taken from the buffer. */
+    int flush() {
+        List<LogEntry> batch = new ArrayList<>(Math.min(batchSize, buffer.capacity()));
+        int drained = buffer.drainTo(batch, batchSize);
+        if (drained == 0)
+            return 0;
+        try {
+            mongoTemplate.insert(batch, LogEntry.class);
+            written.increment(drained);
+        } catch (RuntimeException ex) {
+            failed.increment(drained);
+            log.warn("Failed to write {} request logs: {}", drained, ex.getMessage());
+        }
+        return drained;
+    }
+
+    private void run() {
+        while (running) {
+            if (flush() < batchSize)
+                LockSupport.parkNanos(this, flushIntervalNanos);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::run, "request-log-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = writer;
+        writer = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Whatever is still buffered is written on the stopping thread
+        int flushed;
+        do {
+            flushed = flush();
+        } while (flushed > 0);
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
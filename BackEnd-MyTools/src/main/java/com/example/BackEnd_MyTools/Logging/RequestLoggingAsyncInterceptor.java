@@ -0,0 +1,46 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import java.util.concurrent.Callable;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+/**
+ * Carries a request's Mongo command count onto the worker thread of its async handler (Callable or
+ * StreamingResponseBody) and back, so round trips made while streaming count towards the request's log entry.
+ */
+public class RequestLoggingAsyncInterceptor implements CallableProcessingInterceptor {
+
+    private final ObjectProvider<LoggingService> loggingServiceProvider;
+
+    public RequestLoggingAsyncInterceptor(ObjectProvider<LoggingService> loggingServiceProvider) {
+        this.loggingServiceProvider = loggingServiceProvider;
+    }
+
+    // On the request thread, before the task can start, so the worker never runs ahead of the hand-over
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        LoggingService loggingService = loggingServiceProvider.getIfAvailable();
+        HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+        if (loggingService != null && servletRequest != null)
+            loggingService.suspend(servletRequest);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        LoggingService loggingService = loggingServiceProvider.getIfAvailable();
+        HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+        if (loggingService != null && servletRequest != null)
+            loggingService.resume(servletRequest);
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        LoggingService loggingService = loggingServiceProvider.getIfAvailable();
+        HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+        if (loggingService != null && servletRequest != null)
+            loggingService.suspend(servletRequest);
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Order(1) // Run first - before Spring Security
@@ -25,33 +26,69 @@ public class RequestLoggingFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
 
         LoggingService loggingService = loggingServiceProvider.getIfAvailable();
 
-        try {
-            // 🎯 STEP 1: Log incoming request (ALWAYS)
-            if (loggingService != null) {
-                loggingService.logCompleteRequest(httpRequest);
-            }
+        // 🎯 STEP 1: Start the log entry (kept in memory until the response completes)
+        if (loggingService != null) {
+            loggingService.logCompleteRequest(httpRequest);
+        }
 
+        try {
             // 🎯 STEP 2: Let the request continue through the application
             chain.doFilter(request, response);
 
-            long duration = System.currentTimeMillis() - startTime;
-
-            // 🎯 STEP 3: Log successful response (ALWAYS)
-            if (loggingService != null) {
-                loggingService.logCompleteResponse(httpRequest, httpResponse, duration);
-            }
-
         } catch (Exception ex) {
-            long duration = System.currentTimeMillis() - startTime;
-            // 🎯 STEP 4: Log errors (ALWAYS)
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            // 🎯 STEP 3: Record unhandled errors on the entry
             if (loggingService != null) {
                 loggingService.logError(httpRequest, httpResponse, ex, duration);
             }
             throw ex;
+        } finally {
+            // 🎯 STEP 4: Hand the finished entry to the batched writer (ALWAYS, exactly once)
+            if (loggingService != null && httpRequest.isAsyncStarted()) {
+                // Streaming responses are still being written; finish when the container completes them
+                loggingService.suspend(httpRequest);
+                httpRequest.getAsyncContext()
+                        .addListener(new CompletionListener(loggingService, httpRequest, httpResponse, startNanos));
+            } else if (loggingService != null) {
+                long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                loggingService.logCompleteResponse(httpRequest, httpResponse, duration);
+            }
+        }
+    }
+
+    /** Finishes the entry of an async request with its real duration, final status and any container error. */
+    private record CompletionListener(LoggingService loggingService, HttpServletRequest request,
+            HttpServletResponse response, long startNanos) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            loggingService.logCompleteResponse(request, response, elapsedMillis());
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            Throwable error = event.getThrowable();
+            loggingService.logError(request, response,
+                    error instanceof Exception ex ? ex : new ServletException(error), elapsedMillis());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // The container completes the request afterwards, which ends up in onComplete
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A new async cycle drops its listeners, so stay registered for it
+            event.getAsyncContext().addListener(this, request, response);
+        }
+
+        private long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
         }
     }
 }
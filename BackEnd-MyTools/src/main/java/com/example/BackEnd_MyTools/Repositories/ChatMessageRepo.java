@@ -1,7 +1,5 @@
 package com.example.BackEnd_MyTools.Repositories;
 
-import java.util.List;
-
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,5 +7,4 @@ import com.example.BackEnd_MyTools.Entitys.ChatMessage;
 
 @Repository
 public interface ChatMessageRepo extends MongoRepository<ChatMessage, String> {
-    List<ChatMessage> findByConversationIdOrderByCreatedAtAsc(String conversationId);
 }
@@ -12,6 +12,6 @@ import com.example.BackEnd_MyTools.Entitys.Product;
 public interface ProductRepo extends MongoRepository<Product, String> {
     List<Product> findByOwnerIdOrderByCreatedAtDesc(String ownerId);
 
-    @Query("{ 'categoryId': ?0, '_id': { $ne: ?1 }, 'isavailable': true, 'hidden': { $ne: true } }")
+    @Query("{ 'categoryId': ?0, '_id': { $ne: ?1 }, 'isavailable': true, 'hidden': false }")
     List<Product> findRecommended(int categoryId, String excludedProductId);
 }
@@ -1,8 +1,11 @@
 package com.example.BackEnd_MyTools.Repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.BackEnd_MyTools.Entitys.UserProfile;
@@ -10,4 +13,8 @@ import com.example.BackEnd_MyTools.Entitys.UserProfile;
 @Repository
 public interface UserProfileRepo extends MongoRepository<UserProfile, String> {
     Optional<UserProfile> findByUserId(String userId);
+
+    @Query(value = "{ 'userId': { $in: ?0 } }",
+            fields = "{ 'userId': 1, 'username': 1, 'email': 1, 'firstName': 1, 'lastName': 1 }")
+    List<UserProfile> findNamesByUserIdIn(Collection<String> userIds);
 }
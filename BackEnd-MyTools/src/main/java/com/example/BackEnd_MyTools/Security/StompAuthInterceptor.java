@@ -0,0 +1,48 @@
+package com.example.BackEnd_MyTools.Security;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authenticates STOMP sessions with the same Keycloak JWT as the REST API. The token comes in the CONNECT
+ * frame's Authorization header (browsers cannot set headers on the WebSocket handshake); the session principal
+ * is then named after the JWT subject, which is what /user/queue/... destinations are addressed to.
+ * Anonymous sessions may connect and subscribe to public topics but cannot send to /app.
+ */
+@Component
+public class StompAuthInterceptor implements ChannelInterceptor {
+    private final JwtDecoder jwtDecoder;
+
+    public StompAuthInterceptor(JwtDecoder jwtDecoder) {
+        this.jwtDecoder = jwtDecoder;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null)
+            return message;
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String header = accessor.getFirstNativeHeader("Authorization");
+            if (header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+                try {
+                    accessor.setUser(new JwtAuthenticationToken(jwtDecoder.decode(header.substring(7).trim())));
+                } catch (JwtException ex) {
+                    throw new MessageDeliveryException("Invalid access token");
+                }
+            }
+        } else if (StompCommand.SEND.equals(accessor.getCommand()) && accessor.getUser() == null) {
+            throw new MessageDeliveryException("Authentication required");
+        }
+        return message;
+    }
+}
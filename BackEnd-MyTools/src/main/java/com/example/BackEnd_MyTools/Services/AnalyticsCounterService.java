@@ -0,0 +1,244 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.example.BackEnd_MyTools.Entitys.AnalyticsCounters;
+import com.example.BackEnd_MyTools.Entitys.Mastery;
+import com.example.BackEnd_MyTools.Entitys.Order;
+import com.example.BackEnd_MyTools.Entitys.Product;
+import com.example.BackEnd_MyTools.Entitys.Review;
+import com.example.BackEnd_MyTools.Repositories.MasteryRepo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps {@link AnalyticsCounters} in step with orders, products and reviews. Every change is one unordered bulk
+ * of $inc upserts on the global scope and the affected sellers. A failed update is logged rather than failing
+ * the business operation; {@link #rebuild()} recomputes everything from the source collections.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalyticsCounterService {
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final MasteryRepo masteryRepo;
+
+    public AnalyticsCounters get(String scope) {
+        AnalyticsCounters counters = mongoTemplate.findById(scope, AnalyticsCounters.class);
+        if (counters != null)
+            return counters;
+        AnalyticsCounters empty = new AnalyticsCounters();
+        empty.setId(scope);
+        return empty;
+    }
+
+    public void orderPlaced(Order order) {
+        String status = statusKey(order.getStatus());
+        Map<String, Update> updates = new LinkedHashMap<>();
+        updates.put(AnalyticsCounters.GLOBAL, orderUpdate(status, order.getTotalAmount()));
+        sellerShares(order).forEach((owner, amount) ->
+                updates.put(AnalyticsCounters.sellerKey(owner), orderUpdate(status, amount)));
+        apply(updates);
+    }
+
+    public void orderStatusChanged(Order order, Order.OrderStatus previous) {
+        if (previous == order.getStatus())
+            return;
+        String from = statusKey(previous);
+        String to = statusKey(order.getStatus());
+        Map<String, Update> updates = new LinkedHashMap<>();
+        updates.put(AnalyticsCounters.GLOBAL, moveUpdate(from, to, order.getTotalAmount()));
+        sellerShares(order).forEach((owner, amount) ->
+                updates.put(AnalyticsCounters.sellerKey(owner), moveUpdate(from, to, amount)));
+        apply(updates);
+    }
+
+    public void productAdded(String ownerId) {
+        apply(scopes(ownerId, new Update().inc("products", 1)));
+    }
+
+    public void productRemoved(String ownerId) {
+        apply(scopes(ownerId, new Update().inc("products", -1)));
+    }
+
+    public void reviewAdded(Review review) {
+        apply(scopes(reviewOwner(review), new Update().inc("reviews", 1)));
+    }
+
+    public void reviewRemoved(Review review) {
+        apply(scopes(reviewOwner(review), new Update().inc("reviews", -1)));
+    }
+
+    /** Seeds the counters on first start, after the demo seeders have run. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfMissing() {
+        try {
+            if (!mongoTemplate.exists(new Query(Criteria.where("id").is(AnalyticsCounters.GLOBAL)),
+                    AnalyticsCounters.class))
+                rebuild();
+        } catch (RuntimeException ex) {
+            log.warn("Could not seed analytics counters → {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes every scope from Order, Product and Review and replaces each scope document in place with an
+     * upsert, so dashboards never read an empty collection and nodes starting together do not collide. An
+     * increment that lands between the scan and the replace of its scope can still be overwritten, so this is
+     * meant for first start and manual repair.
+     */
+    public AnalyticsCounters rebuild() {
+        Map<String, AnalyticsCounters> scopes = new HashMap<>();
+        AnalyticsCounters global = scope(scopes, AnalyticsCounters.GLOBAL);
+
+        try (Stream<Order> orders = mongoTemplate.stream(new Query(), Order.class)) {
+            orders.forEach(order -> {
+                String status = statusKey(order.getStatus());
+                count(global, status, order.getTotalAmount());
+                sellerShares(order).forEach((owner, amount) ->
+                        count(scope(scopes, AnalyticsCounters.sellerKey(owner)), status, amount));
+            });
+        }
+
+        for (Document group : mongoTemplate.aggregate(
+                Aggregation.newAggregation(Aggregation.group("ownerId").count().as("n")),
+                Product.class, Document.class)) {
+            long n = ((Number) group.get("n")).longValue();
+            global.setProducts(global.getProducts() + n);
+            String owner = group.getString("_id");
+            if (owner != null) {
+                AnalyticsCounters seller = scope(scopes, AnalyticsCounters.sellerKey(owner));
+                seller.setProducts(seller.getProducts() + n);
+            }
+        }
+
+        Map<String, Long> byProduct = new HashMap<>();
+        Map<String, Long> byMastery = new HashMap<>();
+        for (Document group : mongoTemplate.aggregate(
+                Aggregation.newAggregation(Aggregation.group("productId", "masteryId").count().as("n")),
+                Review.class, Document.class)) {
+            long n = ((Number) group.get("n")).longValue();
+            global.setReviews(global.getReviews() + n);
+            Document key = group.get("_id", Document.class);
+            if (key.getString("productId") != null)
+                byProduct.merge(key.getString("productId"), n, Long::sum);
+            else if (key.getString("masteryId") != null)
+                byMastery.merge(key.getString("masteryId"), n, Long::sum);
+        }
+        productCache.getAll(byProduct.keySet()).forEach((id, product) ->
+                addReviews(scopes, product.getOwnerId(), byProduct.get(id)));
+        masteryRepo.findAllById(byMastery.keySet()).forEach(mastery ->
+                addReviews(scopes, mastery.getMasterId(), byMastery.get(mastery.getId())));
+
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AnalyticsCounters.class);
+        scopes.values().forEach(counters -> {
+            counters.setUpdatedAt(now);
+            bulk.replaceOne(new Query(Criteria.where("id").is(counters.getId())), counters,
+                    FindAndReplaceOptions.options().upsert());
+        });
+        bulk.execute();
+        // Sellers with nothing left; a scope an increment touched since the rebuild started is newer and kept
+        mongoTemplate.remove(new Query(Criteria.where("id").nin(scopes.keySet()).and("updatedAt").lt(now)),
+                AnalyticsCounters.class);
+        log.info("Rebuilt analytics counters for {} scopes", scopes.size());
+        return global;
+    }
+
+    private static Update orderUpdate(String status, double amount) {
+        return new Update()
+                .inc("orders", 1)
+                .inc("ordersByStatus." + status, 1)
+                .inc("revenueByStatus." + status, amount);
+    }
+
+    private static Update moveUpdate(String from, String to, double amount) {
+        return new Update()
+                .inc("ordersByStatus." + from, -1)
+                .inc("ordersByStatus." + to, 1)
+                .inc("revenueByStatus." + from, -amount)
+                .inc("revenueByStatus." + to, amount);
+    }
+
+    private static Map<String, Update> scopes(String ownerId, Update update) {
+        Map<String, Update> updates = new LinkedHashMap<>();
+        updates.put(AnalyticsCounters.GLOBAL, update);
+        if (ownerId != null)
+            updates.put(AnalyticsCounters.sellerKey(ownerId), update);
+        return updates;
+    }
+
+    private void apply(Map<String, Update> updates) {
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AnalyticsCounters.class);
+            Instant now = Instant.now();
+            updates.forEach((scope, update) ->
+                    bulk.upsert(new Query(Criteria.where("id").is(scope)), update.set("updatedAt", now)));
+            bulk.execute();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to update analytics counters {} → {}", updates.keySet(), ex.getMessage());
+        }
+    }
+
+    // A seller's share of an order is the sum of their own lines
+    static Map<String, Double> sellerShares(Order order) {
+        if (order.getItems() == null)
+            return Map.of();
+        return order.getItems().stream()
+                .filter(item -> item.getOwnerId() != null)
+                .collect(Collectors.groupingBy(Order.OrderItem::getOwnerId, LinkedHashMap::new,
+                        Collectors.summingDouble(Order.OrderItem::getLineTotal)));
+    }
+
+    private String reviewOwner(Review review) {
+        if (review.getProductId() != null)
+            return productCache.get(review.getProductId()).map(Product::getOwnerId).orElse(null);
+        if (review.getMasteryId() != null)
+            return masteryRepo.findById(review.getMasteryId()).map(Mastery::getMasterId).orElse(null);
+        return null;
+    }
+
+    private static String statusKey(Order.OrderStatus status) {
+        return status == null ? "UNKNOWN" : status.name();
+    }
+
+    private static AnalyticsCounters scope(Map<String, AnalyticsCounters> scopes, String id) {
+        return scopes.computeIfAbsent(id, k -> {
+            AnalyticsCounters counters = new AnalyticsCounters();
+            counters.setId(k);
+            return counters;
+        });
+    }
+
+    private static void count(AnalyticsCounters counters, String status, double amount) {
+        counters.setOrders(counters.getOrders() + 1);
+        counters.getOrdersByStatus().merge(status, 1L, Long::sum);
+        counters.getRevenueByStatus().merge(status, amount, Double::sum);
+    }
+
+    private static void addReviews(Map<String, AnalyticsCounters> scopes, String ownerId, Long n) {
+        if (ownerId == null || n == null)
+            return;
+        AnalyticsCounters seller = scope(scopes, AnalyticsCounters.sellerKey(ownerId));
+        seller.setReviews(seller.getReviews() + n);
+    }
+}
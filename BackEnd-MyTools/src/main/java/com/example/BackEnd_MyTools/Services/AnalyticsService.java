@@ -1,17 +1,29 @@
 package com.example.BackEnd_MyTools.Services;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.BackEnd_MyTools.Entitys.AnalyticsCounters;
 import com.example.BackEnd_MyTools.Entitys.Order;
-import com.example.BackEnd_MyTools.Repositories.OrderRepo;
-import com.example.BackEnd_MyTools.Repositories.ProductRepo;
-import com.example.BackEnd_MyTools.Repositories.ReviewRepo;
 import com.example.BackEnd_MyTools.Security.SecurityUtils;
 
 import lombok.RequiredArgsConstructor;
@@ -19,36 +31,118 @@ import lombok.RequiredArgsConstructor;
 @Service
 @RequiredArgsConstructor
 public class AnalyticsService {
-    private final OrderRepo orderRepo;
-    private final ProductRepo productRepo;
-    private final ReviewRepo reviewRepo;
+    private static final String ORDER_CSV_HEADER = "id,invoice,status,total,createdAt\n";
+    private static final String ITEM_CSV_HEADER = "orderId,invoice,status,createdAt,productId,productName,ownerId,"
+        + "listingType,quantity,price,startDate,endDate,rentalDays,lineTotal\n";
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+    private static final int CSV_CURSOR_BATCH = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final AnalyticsCounterService analyticsCounters;
 
     public Map<String, Object> dashboard(Jwt jwt) {
         String userId = SecurityUtils.currentUserId(jwt);
-        List<Order> orders = SecurityUtils.isAdmin(jwt) ? orderRepo.findAll() : orderRepo.findSellerOrders(userId);
-        double revenue = orders.stream()
-            .filter(o -> o.getStatus() != Order.OrderStatus.CANCELLED)
-            .mapToDouble(Order::getTotalAmount)
-            .sum();
+        AnalyticsCounters counters = analyticsCounters.get(
+            SecurityUtils.isAdmin(jwt) ? AnalyticsCounters.GLOBAL : AnalyticsCounters.sellerKey(userId));
         Map<String, Object> data = new LinkedHashMap<>();
-        data.put("orders", orders.size());
-        data.put("revenue", revenue);
-        data.put("products", SecurityUtils.isAdmin(jwt) ? productRepo.count() : productRepo.findByOwnerIdOrderByCreatedAtDesc(userId).size());
-        data.put("reviews", reviewRepo.count());
+        data.put("orders", counters.getOrders());
+        data.put("revenue", Math.round(counters.revenue() * 100) / 100.0);
+        data.put("products", counters.getProducts());
+        data.put("reviews", counters.getReviews());
+        data.put("ordersByStatus", counters.getOrdersByStatus());
         return data;
     }
 
-    public byte[] ordersCsv(Jwt jwt) {
+    /**
+     * Streams the orders visible to the caller as CSV, one row per order or, with {@code lineItems}, one row per
+     * order line (sellers only get their own lines). Rows are read through a Mongo cursor and written straight to
+     * the response, so memory use does not grow with the export. Arguments are checked before anything is
+     * written, so a bad request still gets a 400.
+     */
+    public StreamingResponseBody ordersCsv(Jwt jwt, LocalDate from, LocalDate to, List<Order.OrderStatus> statuses,
+            boolean lineItems, boolean gzip) {
         String userId = SecurityUtils.currentUserId(jwt);
-        List<Order> orders = SecurityUtils.isAdmin(jwt) ? orderRepo.findAll() : orderRepo.findSellerOrders(userId);
-        StringBuilder csv = new StringBuilder("id,invoice,status,total,createdAt\n");
-        for (Order order : orders) {
-            csv.append(order.getId()).append(',')
-               .append(order.getInvoiceNumber()).append(',')
-               .append(order.getStatus()).append(',')
-               .append(order.getTotalAmount()).append(',')
-               .append(order.getCreatedAt()).append('\n');
+        String sellerId = SecurityUtils.isAdmin(jwt) ? null : userId;
+        if (from != null && to != null && from.isAfter(to))
+            throw new IllegalArgumentException("from must not be after to");
+        Query query = exportQuery(sellerId, from, to, statuses);
+        return out -> {
+            // Closing the writer finishes the gzip trailer and ends its Deflater, also when the export fails;
+            // the response stream itself is left to the container
+            OutputStream body = StreamUtils.nonClosing(out);
+            OutputStream target = gzip ? new GZIPOutputStream(body, CSV_BUFFER_SIZE) : body;
+            try (Writer csv = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8),
+                    CSV_BUFFER_SIZE); Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+                csv.write(lineItems ? ITEM_CSV_HEADER : ORDER_CSV_HEADER);
+                for (Order order : (Iterable<Order>) orders::iterator) {
+                    if (lineItems)
+                        writeItemRows(csv, order, sellerId);
+                    else
+                        writeOrderRow(csv, order);
+                }
+            }
+        };
+    }
+
+    static Query exportQuery(String sellerId, LocalDate from, LocalDate to, List<Order.OrderStatus> statuses) {
+        Criteria criteria = new Criteria();
+        if (sellerId != null)
+            criteria.and("items.ownerId").is(sellerId);
+        if (from != null || to != null) {
+            Criteria createdAt = criteria.and("createdAt");
+            if (from != null)
+                createdAt.gte(from.atStartOfDay());
+            if (to != null)
+                createdAt.lt(to.plusDays(1).atStartOfDay());
+        }
+        if (statuses != null && !statuses.isEmpty())
+            criteria.and("status").in(statuses);
+        // _id order follows insertion and needs no extra index or in-memory sort
+        Query query = new Query(criteria).with(Sort.by("_id")).cursorBatchSize(CSV_CURSOR_BATCH);
+        query.fields().include("invoiceNumber", "status", "totalAmount", "createdAt", "items");
+        return query;
+    }
+
+    private static void writeOrderRow(Writer csv, Order order) throws IOException {
+        csv.append(cell(order.getId())).append(',')
+            .append(cell(order.getInvoiceNumber())).append(',')
+            .append(cell(order.getStatus())).append(',')
+            .append(String.valueOf(order.getTotalAmount())).append(',')
+            .append(cell(order.getCreatedAt())).append('\n');
+    }
+
+    private static void writeItemRows(Writer csv, Order order, String sellerId) throws IOException {
+        if (order.getItems() == null)
+            return;
+        for (Order.OrderItem item : order.getItems()) {
+            if (sellerId != null && !sellerId.equals(item.getOwnerId()))
+                continue;
+            csv.append(cell(order.getId())).append(',')
+                .append(cell(order.getInvoiceNumber())).append(',')
+                .append(cell(order.getStatus())).append(',')
+                .append(cell(order.getCreatedAt())).append(',')
+                .append(cell(item.getProductId())).append(',')
+                .append(cell(item.getProductName())).append(',')
+                .append(cell(item.getOwnerId())).append(',')
+                .append(cell(item.getListingType())).append(',')
+                .append(String.valueOf(item.getQuantity())).append(',')
+                .append(String.valueOf(item.getPrice())).append(',')
+                .append(cell(item.getStartDate())).append(',')
+                .append(cell(item.getEndDate())).append(',')
+                .append(String.valueOf(item.getRentalDays())).append(',')
+                .append(String.valueOf(item.getLineTotal())).append('\n');
         }
-        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // RFC 4180 quoting; a leading formula character is neutralised so spreadsheets do not evaluate it
+    static String cell(Object value) {
+        if (value == null)
+            return "";
+        String text = value.toString();
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0)
+            text = "'" + text;
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0)
+            return text;
+        return '"' + text.replace("\"", "\"\"") + '"';
     }
 }
@@ -0,0 +1,283 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+
+import com.example.BackEnd_MyTools.Entitys.Booking;
+import com.example.BackEnd_MyTools.Entitys.Order;
+import com.example.BackEnd_MyTools.Entitys.Product;
+import com.example.BackEnd_MyTools.Security.SecurityUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Revenue, order count, average basket and rental days per day, week or month, optionally narrowed to a seller,
+ * a product category or a city. Each series is computed by aggregation pipelines over Order.items and Booking,
+ * bucketed with $dateTrunc in {@code mytools.analytics.timezone} (the server zone by default). Closed buckets
+ * are cached per scope for {@code mytools.analytics.trend.closed-ttl}, so a repeated request only recomputes
+ * the current bucket.
+ */
+@Service
+public class AnalyticsTrendService {
+    private static final int MAX_BUCKETS = 400;
+
+    public enum Interval {
+        DAY, WEEK, MONTH;
+
+        public static Interval parse(String value) {
+            try {
+                return value == null ? DAY : valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("interval must be day, week or month");
+            }
+        }
+    }
+
+    /** Null fields are unconstrained. The city is kept as its {@link Product#cityKey} like every product filter. */
+    public record TrendFilter(String sellerId, Integer categoryId, String city) {
+        public TrendFilter {
+            city = Product.cityKey(city);
+        }
+    }
+
+    public record TrendPoint(LocalDate bucket, double revenue, long orders, double averageBasket, long rentalDays) {
+        static TrendPoint empty(LocalDate bucket) {
+            return new TrendPoint(bucket, 0, 0, 0, 0);
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ZoneId zone;
+    // Keyed by scope and bucket start; only closed buckets are cached
+    private final BoundedCache<String, TrendPoint> closedBuckets;
+
+    public AnalyticsTrendService(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+            @Value("${mytools.analytics.timezone:}") String timezone,
+            @Value("${mytools.analytics.trend.closed-ttl:PT1H}") Duration closedTtl,
+            @Value("${mytools.analytics.trend.max-entries:20000}") int maxEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.zone = timezone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(timezone);
+        this.closedBuckets = BoundedCache.ofEntries("analytics-trend", meterRegistry, closedTtl, maxEntries);
+    }
+
+    /** Sellers always get their own series; admins may pick any seller or none. */
+    public List<TrendPoint> trend(Jwt jwt, String interval, LocalDate from, LocalDate to, String sellerId,
+            Integer categoryId, String city) {
+        String userId = SecurityUtils.currentUserId(jwt);
+        if (!SecurityUtils.isAdmin(jwt)) {
+            if (sellerId != null && !sellerId.equals(userId))
+                throw new SecurityException("You can only view your own trends");
+            sellerId = userId;
+        }
+        Interval unit = Interval.parse(interval);
+        LocalDate end = to != null ? to : LocalDate.now(zone);
+        LocalDate start = from != null ? from : switch (unit) {
+            case DAY -> end.minusDays(29);
+            case WEEK -> end.minusWeeks(11);
+            case MONTH -> end.minusMonths(11);
+        };
+        if (start.isAfter(end))
+            throw new IllegalArgumentException("from must not be after to");
+        return trend(unit, start, end, new TrendFilter(blankToNull(sellerId), categoryId, blankToNull(city)));
+    }
+
+    public List<TrendPoint> trend(Interval interval, LocalDate from, LocalDate to, TrendFilter filter) {
+        List<LocalDate> buckets = new ArrayList<>();
+        for (LocalDate bucket = bucketStart(interval, from); !bucket.isAfter(to); bucket = next(interval, bucket)) {
+            if (buckets.size() == MAX_BUCKETS)
+                throw new IllegalArgumentException("Range is too long: at most " + MAX_BUCKETS + " buckets");
+            buckets.add(bucket);
+        }
+        LocalDate current = bucketStart(interval, LocalDate.now(zone));
+        String scope = interval + "|" + filter.sellerId() + "|" + filter.categoryId() + "|" + filter.city();
+
+        long loadGeneration = closedBuckets.generation();
+        Map<String, TrendPoint> cached = closedBuckets.getAllPresent(buckets.stream()
+                .filter(bucket -> bucket.isBefore(current)).map(bucket -> scope + "|" + bucket).toList());
+        Map<LocalDate, TrendPoint> points = new HashMap<>();
+        LocalDate firstMissing = null;
+        LocalDate missingEnd = null;
+        for (LocalDate bucket : buckets) {
+            TrendPoint point = cached.get(scope + "|" + bucket);
+            if (point != null) {
+                points.put(bucket, point);
+                continue;
+            }
+            if (firstMissing == null)
+                firstMissing = bucket;
+            missingEnd = next(interval, bucket);
+        }
+        if (firstMissing != null) {
+            // One pass over the span between the first and last miss; cached buckets inside it are refreshed too
+            Map<LocalDate, TrendPoint> computed = compute(interval, firstMissing, missingEnd, filter);
+            Map<String, TrendPoint> closed = new HashMap<>();
+            for (LocalDate bucket : buckets) {
+                if (bucket.isBefore(firstMissing) || !bucket.isBefore(missingEnd))
+                    continue;
+                TrendPoint point = computed.getOrDefault(bucket, TrendPoint.empty(bucket));
+                points.put(bucket, point);
+                if (bucket.isBefore(current))
+                    closed.put(scope + "|" + bucket, point);
+            }
+            closedBuckets.putAll(closed, loadGeneration);
+        }
+        return buckets.stream().map(points::get).toList();
+    }
+
+    public int size() {
+        return closedBuckets.size();
+    }
+
+    /** Points for every bucket in [start, end) that has data; buckets without orders or bookings are absent. */
+    Map<LocalDate, TrendPoint> compute(Interval interval, LocalDate start, LocalDate end, TrendFilter filter) {
+        Document productMatch = productMatch(filter);
+        Date from = toDate(start);
+        Date until = toDate(end);
+
+        Map<LocalDate, Document> orderRows = new HashMap<>();
+        for (Document row : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                .aggregate(orderPipeline(interval, from, until, filter.sellerId(), productMatch)).allowDiskUse(true))
+            orderRows.put(toBucket(row), row);
+        Map<LocalDate, Long> rentalDays = new HashMap<>();
+        for (Document row : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Booking.class))
+                .aggregate(bookingPipeline(interval, from, until, filter.sellerId(), productMatch))
+                .allowDiskUse(true))
+            rentalDays.put(toBucket(row), ((Number) row.get("rentalDays")).longValue());
+
+        Map<LocalDate, TrendPoint> points = new HashMap<>();
+        orderRows.forEach((bucket, row) -> {
+            double revenue = ((Number) row.get("revenue")).doubleValue();
+            long orders = ((Number) row.get("orders")).longValue();
+            points.put(bucket, new TrendPoint(bucket, round(revenue), orders,
+                    orders == 0 ? 0 : round(revenue / orders), rentalDays.getOrDefault(bucket, 0L)));
+        });
+        rentalDays.forEach((bucket, days) -> points.putIfAbsent(bucket, new TrendPoint(bucket, 0, 0, 0, days)));
+        return points;
+    }
+
+    // Revenue is the sum of the matching lines, so a seller only sees their own share of mixed orders
+    List<Document> orderPipeline(Interval interval, Date from, Date until, String sellerId, Document productMatch) {
+        Document match = new Document("createdAt", new Document("$gte", from).append("$lt", until))
+                .append("status", new Document("$ne", Order.OrderStatus.CANCELLED.name()));
+        if (sellerId != null)
+            match.append("items.ownerId", sellerId);
+
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", match));
+        pipeline.add(new Document("$unwind", "$items"));
+        if (sellerId != null)
+            pipeline.add(new Document("$match", new Document("items.ownerId", sellerId)));
+        if (productMatch != null)
+            pipeline.addAll(productJoin("$items.productId", productMatch));
+        pipeline.add(new Document("$group", new Document("_id",
+                new Document("bucket", truncate(interval, "$createdAt")).append("order", "$_id"))
+                .append("revenue", new Document("$sum", "$items.lineTotal"))));
+        pipeline.add(new Document("$group", new Document("_id", "$_id.bucket")
+                .append("revenue", new Document("$sum", "$revenue"))
+                .append("orders", new Document("$sum", 1))));
+        return pipeline;
+    }
+
+    List<Document> bookingPipeline(Interval interval, Date from, Date until, String sellerId,
+            Document productMatch) {
+        Document match = new Document("startDate", new Document("$gte", from).append("$lt", until))
+                .append("status", new Document("$ne", Booking.BookingStatus.CANCELLED.name()))
+                .append("productId", new Document("$ne", null));
+        if (sellerId != null)
+            match.append("ownerId", sellerId);
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", match));
+        if (productMatch != null)
+            pipeline.addAll(productJoin("$productId", productMatch));
+        pipeline.add(new Document("$group", new Document("_id", truncate(interval, "$startDate"))
+                .append("rentalDays", new Document("$sum", "$durationDays"))));
+        return pipeline;
+    }
+
+    /**
+     * Keeps the rows whose product matches the category/city filter. Each row looks up its own product by _id
+     * after the range match, so the cost follows the rows in range rather than the size of the category.
+     */
+    private List<Document> productJoin(String productIdField, Document productMatch) {
+        // Orders and bookings hold the product id as a string; products generated by Mongo have an ObjectId _id
+        Document productId = new Document("$convert", new Document("input", productIdField)
+                .append("to", "objectId").append("onError", productIdField));
+        Document lookup = new Document("from", mongoTemplate.getCollectionName(Product.class))
+                .append("let", new Document("pid", productId))
+                .append("pipeline", List.of(
+                        new Document("$match", new Document("$expr", new Document("$eq", List.of("$_id", "$$pid")))),
+                        new Document("$match", productMatch),
+                        new Document("$project", new Document("_id", 1))))
+                .append("as", "product");
+        return List.of(new Document("$lookup", lookup),
+                new Document("$match", new Document("product", new Document("$ne", List.of()))));
+    }
+
+    private Document truncate(Interval interval, String field) {
+        Document dateTrunc = new Document("date", field)
+                .append("unit", interval.name().toLowerCase(Locale.ROOT))
+                .append("timezone", zone.getId());
+        if (interval == Interval.WEEK)
+            dateTrunc.append("startOfWeek", "monday");
+        return new Document("$dateTrunc", dateTrunc);
+    }
+
+    // Null when the filter has no product-level field; the seller is matched on the rows themselves
+    private static Document productMatch(TrendFilter filter) {
+        if (filter.categoryId() == null && filter.city() == null)
+            return null;
+        Document match = new Document();
+        if (filter.categoryId() != null)
+            match.append("categoryId", filter.categoryId());
+        if (filter.city() != null)
+            match.append("cityKey", filter.city());
+        return match;
+    }
+
+    static LocalDate bucketStart(Interval interval, LocalDate date) {
+        return switch (interval) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    static LocalDate next(Interval interval, LocalDate bucket) {
+        return switch (interval) {
+            case DAY -> bucket.plusDays(1);
+            case WEEK -> bucket.plusWeeks(1);
+            case MONTH -> bucket.plusMonths(1);
+        };
+    }
+
+    private Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(zone).toInstant());
+    }
+
+    private LocalDate toBucket(Document row) {
+        return row.getDate("_id").toInstant().atZone(zone).toLocalDate();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
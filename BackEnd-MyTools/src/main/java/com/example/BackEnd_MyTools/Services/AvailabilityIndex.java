@@ -0,0 +1,195 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.example.BackEnd_MyTools.Entitys.Booking;
+import com.example.BackEnd_MyTools.Entitys.ResourceAvailability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Booked days per resource as one {@link BitSet} per calendar year. A resource is loaded from its persisted
+ * bitmaps (or rebuilt from its active bookings the first time) and then answers conflict checks and calendars
+ * from memory in O(days in range). Changes are applied in memory and persisted with atomic $bit updates. The
+ * in-memory copies live in a bounded LRU ({@code mytools.availability.max-resources}) and expire after a short
+ * refresh interval, after which they are re-read from ResourceAvailability so changes made by other nodes show
+ * up. Double-booking itself is prevented by {@link BookingReservationService}; this index only serves reads.
+ */
+@Component
+public class AvailabilityIndex {
+    private final MongoTemplate mongoTemplate;
+    private final BoundedCache<String, ResourceDays> resources;
+
+    public AvailabilityIndex(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+            @Value("${mytools.availability.refresh:PT30S}") Duration refresh,
+            @Value("${mytools.availability.max-resources:20000}") int maxResources) {
+        this.mongoTemplate = mongoTemplate;
+        this.resources = BoundedCache.ofEntries("availability", meterRegistry, refresh, maxResources);
+    }
+
+    private static final class ResourceDays {
+        private final Map<Integer, BitSet> years = new HashMap<>();
+
+        synchronized void set(Collection<LocalDate> days, boolean booked) {
+            for (LocalDate day : days)
+                years.computeIfAbsent(day.getYear(), y -> new BitSet(366)).set(day.getDayOfYear() - 1, booked);
+        }
+
+        synchronized boolean anySet(LocalDate start, LocalDate end) {
+            for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+                BitSet year = years.get(day.getYear());
+                if (year != null && year.get(day.getDayOfYear() - 1))
+                    return true;
+            }
+            return false;
+        }
+
+        synchronized List<LocalDate> setDays() {
+            List<LocalDate> days = new ArrayList<>();
+            new TreeMap<>(years).forEach((year, bits) -> {
+                for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1))
+                    days.add(LocalDate.ofYearDay(year, bit + 1));
+            });
+            return days;
+        }
+    }
+
+    /** True when any day in [start, end) is booked. */
+    public boolean isBooked(Booking.ResourceType type, String resourceId, LocalDate start, LocalDate end) {
+        return load(type, resourceId).anySet(start, end);
+    }
+
+    /**
+     * Booked days plus each following checkout day, matching the calendar's inclusive end dates, in order.
+     */
+    public List<LocalDate> unavailableDays(Booking.ResourceType type, String resourceId) {
+        List<LocalDate> result = new ArrayList<>();
+        LocalDate last = null;
+        for (LocalDate day : load(type, resourceId).setDays()) {
+            if (last == null || day.isAfter(last))
+                result.add(day);
+            result.add(day.plusDays(1));
+            last = day.plusDays(1);
+        }
+        return result;
+    }
+
+    /** Marks every day in [start, end) as booked. */
+    public void markBooked(Booking.ResourceType type, String resourceId, LocalDate start, LocalDate end) {
+        List<LocalDate> days = start.datesUntil(end).toList();
+        load(type, resourceId).set(days, true);
+        persist(type, resourceId, days, true);
+    }
+
+    public void markFree(Booking.ResourceType type, String resourceId, Collection<LocalDate> days) {
+        if (days.isEmpty())
+            return;
+        load(type, resourceId).set(days, false);
+        persist(type, resourceId, days, false);
+    }
+
+    private ResourceDays load(Booking.ResourceType type, String resourceId) {
+        String key = type + ":" + resourceId;
+        long loadGeneration = resources.generation();
+        ResourceDays current = resources.getIfPresent(key);
+        if (current != null)
+            return current;
+        ResourceDays days = read(type, resourceId);
+        if (days == null) {
+            // First use of this resource: derive the bitmap from its active bookings
+            ResourceDays rebuilt = new ResourceDays();
+            for (Booking booking : mongoTemplate.find(activeBookings(type, resourceId), Booking.class)) {
+                if (booking.getStartDate() != null && booking.getEndDate() != null)
+                    rebuilt.set(booking.getStartDate().datesUntil(booking.getEndDate()).toList(), true);
+            }
+            persistRebuilt(type, resourceId, rebuilt);
+            // Whatever is stored now wins over this snapshot, which may predate another node's change
+            ResourceDays stored = read(type, resourceId);
+            days = stored != null ? stored : rebuilt;
+        }
+        resources.put(key, days, loadGeneration);
+        return days;
+    }
+
+    private ResourceDays read(Booking.ResourceType type, String resourceId) {
+        List<ResourceAvailability> stored = mongoTemplate.find(
+                new Query(Criteria.where("resourceType").is(type).and("resourceId").is(resourceId)),
+                ResourceAvailability.class);
+        if (stored.isEmpty())
+            return null;
+        ResourceDays days = new ResourceDays();
+        stored.forEach(doc -> days.years.put(doc.getYear(), BitSet.valueOf(doc.words())));
+        return days;
+    }
+
+    /**
+     * Writes a rebuilt bitmap with $setOnInsert only, so it never lands on a year document that already exists.
+     * A node that cancels a booking loads (and so writes) the bitmap before clearing its bits; a rebuild on another
+     * node that read the bookings before the cancel therefore finds the document in place and cannot set the
+     * cancelled days again.
+     */
+    private void persistRebuilt(Booking.ResourceType type, String resourceId, ResourceDays days) {
+        days.years.forEach((year, bits) -> {
+            long[] words = Arrays.copyOf(bits.toLongArray(), ResourceAvailability.WORDS);
+            Update update = new Update()
+                    .setOnInsert("resourceType", type)
+                    .setOnInsert("resourceId", resourceId)
+                    .setOnInsert("year", year);
+            for (int w = 0; w < words.length; w++)
+                update.setOnInsert("w" + w, words[w]);
+            mongoTemplate.upsert(new Query(Criteria.where("id").is(ResourceAvailability.key(type, resourceId, year))),
+                    update, ResourceAvailability.class);
+        });
+    }
+
+    private Query activeBookings(Booking.ResourceType type, String resourceId) {
+        String legacyField = type == Booking.ResourceType.MASTERY ? "masteryId" : "productId";
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("status").in(Booking.BookingStatus.PENDING, Booking.BookingStatus.CONFIRMED),
+                new Criteria().orOperator(Criteria.where(legacyField).is(resourceId),
+                        Criteria.where("resourceType").is(type).and("resourceId").is(resourceId))));
+        query.fields().include("startDate", "endDate");
+        return query;
+    }
+
+    private void persist(Booking.ResourceType type, String resourceId, Collection<LocalDate> days, boolean booked) {
+        Map<Integer, long[]> masks = new TreeMap<>();
+        for (LocalDate day : days) {
+            int bit = day.getDayOfYear() - 1;
+            long[] words = masks.computeIfAbsent(day.getYear(), y -> new long[ResourceAvailability.WORDS]);
+            words[bit / 64] |= 1L << (bit % 64);
+        }
+        masks.forEach((year, words) -> {
+            Update update = new Update()
+                    .setOnInsert("resourceType", type)
+                    .setOnInsert("resourceId", resourceId)
+                    .setOnInsert("year", year);
+            for (int w = 0; w < words.length; w++) {
+                if (words[w] == 0)
+                    continue;
+                if (booked)
+                    update.bitwise("w" + w).or(words[w]);
+                else
+                    update.bitwise("w" + w).and(~words[w]);
+            }
+            mongoTemplate.upsert(new Query(Criteria.where("id").is(ResourceAvailability.key(type, resourceId, year))),
+                    update, ResourceAvailability.class);
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.example.BackEnd_MyTools.Entitys.Booking;
+import com.example.BackEnd_MyTools.Entitys.BookingReservation;
+
+/**
+ * Claims resource-days for bookings. A hold inserts one {@link BookingReservation} per booked day in a single
+ * ordered insert; if any day is already taken the unique _id rejects it, the days inserted so far are removed
+ * again and the hold fails. This works on a standalone MongoDB, where multi-document transactions are not
+ * available. Successful holds and releases are mirrored into the {@link AvailabilityIndex}.
+ */
+@Service
+public class BookingReservationService {
+    private final MongoTemplate mongoTemplate;
+    private final AvailabilityIndex availabilityIndex;
+
+    public BookingReservationService(MongoTemplate mongoTemplate, AvailabilityIndex availabilityIndex) {
+        this.mongoTemplate = mongoTemplate;
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    /** Days from startDate (inclusive) to endDate (exclusive) of one resource. */
+    public record Span(Booking.ResourceType resourceType, String resourceId, LocalDate startDate,
+            LocalDate endDate) {
+    }
+
+    /**
+     * Claims every day of every span under one new hold id, or none of them.
+     *
+     * @throws IllegalArgumentException when any day is already held, including by another span of the same call
+     */
+    public String reserve(List<Span> spans) {
+        String holdId = UUID.randomUUID().toString();
+        List<BookingReservation> days = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Span span : spans) {
+            span.startDate().datesUntil(span.endDate()).forEach(day -> days.add(BookingReservation.builder()
+                    .id(BookingReservation.key(span.resourceType(), span.resourceId(), day))
+                    .resourceType(span.resourceType())
+                    .resourceId(span.resourceId())
+                    .day(day)
+                    .holdId(holdId)
+                    .createdAt(now)
+                    .build()));
+        }
+        if (days.isEmpty())
+            return holdId;
+        try {
+            mongoTemplate.insert(days, BookingReservation.class);
+        } catch (DuplicateKeyException ex) {
+            removeHold(holdId, spans);
+            throw new IllegalArgumentException("Selected dates are already booked");
+        }
+        for (Span span : spans)
+            availabilityIndex.markBooked(span.resourceType(), span.resourceId(), span.startDate(), span.endDate());
+        return holdId;
+    }
+
+    public String reserve(Booking.ResourceType resourceType, String resourceId, LocalDate startDate,
+            LocalDate endDate) {
+        return reserve(List.of(new Span(resourceType, resourceId, startDate, endDate)));
+    }
+
+    /** Frees the days of the given spans that belong to this hold; days held by others are left untouched. */
+    public void release(String holdId, List<Span> spans) {
+        if (holdId == null || spans.isEmpty())
+            return;
+        removeHold(holdId, spans);
+        freeUnheldDays(spans);
+    }
+
+    /** Bookings made before reservations existed have no hold id, but still occupy the availability index. */
+    public void release(Booking booking) {
+        if (booking.getStartDate() == null || booking.getEndDate() == null)
+            return;
+        if (booking.getReservationId() == null)
+            freeUnheldDays(List.of(spanOf(booking)));
+        else
+            release(booking.getReservationId(), List.of(spanOf(booking)));
+    }
+
+    public static Span spanOf(Booking booking) {
+        return new Span(booking.getResourceType(), booking.getResourceId(), booking.getStartDate(),
+                booking.getEndDate());
+    }
+
+    private void removeHold(String holdId, List<Span> spans) {
+        mongoTemplate.remove(new Query(Criteria.where("id").in(dayKeys(spans)).and("holdId").is(holdId)),
+                BookingReservation.class);
+    }
+
+    // Clears the index only for days no hold owns any more, so releasing a foreign or stale hold frees nothing
+    private void freeUnheldDays(List<Span> spans) {
+        Query held = new Query(Criteria.where("id").in(dayKeys(spans)));
+        held.fields().include("id");
+        Set<String> stillHeld = new HashSet<>();
+        mongoTemplate.find(held, BookingReservation.class).forEach(day -> stillHeld.add(day.getId()));
+        for (Span span : spans) {
+            List<LocalDate> free = span.startDate().datesUntil(span.endDate())
+                    .filter(day -> !stillHeld.contains(
+                            BookingReservation.key(span.resourceType(), span.resourceId(), day)))
+                    .toList();
+            availabilityIndex.markFree(span.resourceType(), span.resourceId(), free);
+        }
+    }
+
+    private static List<String> dayKeys(List<Span> spans) {
+        List<String> ids = new ArrayList<>();
+        for (Span span : spans)
+            span.startDate().datesUntil(span.endDate())
+                    .forEach(day -> ids.add(BookingReservation.key(span.resourceType(), span.resourceId(), day)));
+        return ids;
+    }
+}
@@ -3,8 +3,19 @@ package com.example.BackEnd_MyTools.Services;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
@@ -17,9 +28,9 @@ import com.example.BackEnd_MyTools.Entitys.Product;
 import com.example.BackEnd_MyTools.Repositories.BookingRepo;
 import com.example.BackEnd_MyTools.Repositories.MasteryRepo;
 import com.example.BackEnd_MyTools.Repositories.ProductRepo;
-import com.example.BackEnd_MyTools.Repositories.UserProfileRepo;
 import com.example.BackEnd_MyTools.Security.SecurityUtils;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -28,32 +39,28 @@ public class BookingService {
     private final BookingRepo bookingRepo;
     private final ProductRepo productRepo;
     private final MasteryRepo masteryRepo;
-    private final UserProfileRepo userProfileRepo;
+    private final DisplayNameCache displayNames;
     private final NotificationService notificationService;
+    private final MongoTemplate mongoTemplate;
+    private final BookingReservationService reservationService;
+    private final AvailabilityIndex availabilityIndex;
 
     public List<Booking> getMyBookings(String userId) {
-        return bookingRepo.findByUserIdOrderByCreatedAtDesc(userId).stream()
-                .map(this::normalizeBooking)
-                .toList();
+        return normalizeAll(bookingRepo.findByUserIdOrderByCreatedAtDesc(userId));
     }
 
     public List<Booking> getAllBookings() {
-        return bookingRepo.findAll().stream()
-                .map(this::normalizeBooking)
+        return normalizeAll(bookingRepo.findAll()).stream()
                 .sorted(Comparator.comparing(Booking::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())).reversed())
                 .toList();
     }
 
     public List<Booking> getOwnerBookings(String ownerId) {
-        return bookingRepo.findByOwnerIdOrderByCreatedAtDesc(ownerId).stream()
-                .map(this::normalizeBooking)
-                .toList();
+        return normalizeAll(bookingRepo.findByOwnerIdOrderByCreatedAtDesc(ownerId));
     }
 
     public List<Booking> getProductBookings(String productId) {
-        return bookingRepo.findByProductIdOrderByStartDateAsc(productId).stream()
-                .map(this::normalizeBooking)
-                .toList();
+        return normalizeAll(bookingRepo.findByProductIdOrderByStartDateAsc(productId));
     }
 
     public List<Booking> getMasteryBookings(String masteryId) {
@@ -64,34 +71,65 @@ public class BookingService {
         if (resourceType == Booking.ResourceType.PRODUCT) {
             return getProductBookings(resourceId);
         }
-        return bookingRepo.findByResourceTypeAndResourceIdOrderByStartDateAsc(resourceType, resourceId).stream()
-                .map(this::normalizeBooking)
-                .toList();
+        return normalizeAll(bookingRepo.findByResourceTypeAndResourceIdOrderByStartDateAsc(resourceType, resourceId));
     }
 
     public List<LocalDate> getUnavailableDates(Booking.ResourceType resourceType, String resourceId) {
-        return getResourceBookings(resourceType, resourceId).stream()
-                .filter(b -> b.getStatus() == Booking.BookingStatus.PENDING
-                        || b.getStatus() == Booking.BookingStatus.CONFIRMED)
-                .flatMap(b -> b.getStartDate().datesUntil(b.getEndDate().plusDays(1)))
-                .distinct()
-                .sorted()
-                .toList();
+        return availabilityIndex.unavailableDays(resourceType, resourceId);
     }
 
     public boolean hasConflict(String productId, LocalDate startDate, LocalDate endDate) {
         return hasConflict(Booking.ResourceType.PRODUCT, productId, startDate, endDate);
     }
 
+    @Timed(value = "mytools.bookings.conflict-check")
     public boolean hasConflict(Booking.ResourceType resourceType, String resourceId, LocalDate startDate,
             LocalDate endDate) {
         validateDates(startDate, endDate);
-        if (resourceType == Booking.ResourceType.PRODUCT) {
-            return !bookingRepo.findConflictingBookings(resourceId, startDate, endDate).isEmpty()
-                    || !bookingRepo.findConflictingResourceBookings(resourceType, resourceId, startDate, endDate)
-                            .isEmpty();
+        return availabilityIndex.isBooked(resourceType, resourceId, startDate, endDate);
+    }
+
+    /**
+     * Product ids whose requested rental window overlaps an active booking, or another window in the same batch.
+     * All windows are checked with a single query.
+     */
+    public Set<String> findConflictingProducts(List<Cart.CartItem> rentals) {
+        Set<String> conflicting = new HashSet<>();
+        if (rentals.isEmpty())
+            return conflicting;
+        List<Criteria> windows = new ArrayList<>();
+        for (int i = 0; i < rentals.size(); i++) {
+            Cart.CartItem item = rentals.get(i);
+            validateDates(item.getStartDate(), item.getEndDate());
+            for (int j = 0; j < i; j++) {
+                Cart.CartItem other = rentals.get(j);
+                if (other.getProductId().equals(item.getProductId())
+                        && other.getStartDate().isBefore(item.getEndDate())
+                        && other.getEndDate().isAfter(item.getStartDate()))
+                    conflicting.add(item.getProductId());
+            }
+            windows.add(new Criteria().andOperator(
+                    new Criteria().orOperator(Criteria.where("productId").is(item.getProductId()),
+                            Criteria.where("resourceType").is(Booking.ResourceType.PRODUCT)
+                                    .and("resourceId").is(item.getProductId())),
+                    Criteria.where("startDate").lt(item.getEndDate()),
+                    Criteria.where("endDate").gt(item.getStartDate())));
         }
-        return !bookingRepo.findConflictingResourceBookings(resourceType, resourceId, startDate, endDate).isEmpty();
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("status").in(Booking.BookingStatus.PENDING, Booking.BookingStatus.CONFIRMED),
+                new Criteria().orOperator(windows.toArray(new Criteria[0]))));
+        query.fields().include("productId", "resourceId", "startDate", "endDate");
+        for (Booking booking : mongoTemplate.find(query, Booking.class)) {
+            String productId = booking.getProductId() != null ? booking.getProductId() : booking.getResourceId();
+            // A booking can match another item's window in the $or; keep only real overlaps
+            rentals.stream()
+                    .filter(item -> item.getProductId().equals(productId)
+                            && booking.getStartDate().isBefore(item.getEndDate())
+                            && booking.getEndDate().isAfter(item.getStartDate()))
+                    .findFirst()
+                    .ifPresent(item -> conflicting.add(productId));
+        }
+        return conflicting;
     }
 
     public Booking createDirectBooking(Jwt jwt, CreateBookingRequest request) {
@@ -109,20 +147,40 @@ public class BookingService {
                 : buildBooking(loadMastery(resourceId), userId, null, request.getStartDate(), request.getEndDate(),
                         Math.max(1, request.getQuantity()), Booking.BookingStatus.PENDING);
 
-        Booking saved = bookingRepo.save(booking);
+        Booking saved = saveReserved(booking);
         notifyOwner(saved, userId);
         return saved;
     }
 
-    public Booking createFromOrderItem(Product product, String userId, String orderId, Cart.CartItem item,
-            Booking.BookingStatus status) {
-        validateDates(item.getStartDate(), item.getEndDate());
-        if (hasConflict(Booking.ResourceType.PRODUCT, product.getId(), item.getStartDate(), item.getEndDate())) {
-            throw new IllegalArgumentException(
-                    "Product " + product.getName() + " is already booked for the selected dates");
-        }
-        return bookingRepo.save(buildBooking(product, userId, orderId, item.getStartDate(), item.getEndDate(),
-                item.getQuantity(), status));
+    /** Claims the days of every rental line under one hold; see {@link BookingReservationService}. */
+    public String reserveRentals(List<Cart.CartItem> rentals) {
+        return reservationService.reserve(rentalSpans(rentals));
+    }
+
+    /**
+     * Undoes a failed checkout: removes the bookings already written under {@code holdId}, then frees the held
+     * days. The bookings go first so no active booking is ever left on days nothing holds any more.
+     */
+    public void releaseRentals(String holdId, List<Cart.CartItem> rentals) {
+        if (holdId != null && !rentals.isEmpty())
+            mongoTemplate.remove(new Query(Criteria.where("reservationId").is(holdId)), Booking.class);
+        reservationService.release(holdId, rentalSpans(rentals));
+    }
+
+    /**
+     * Bookings for the rental lines of an order, written with one bulk insert. The days must already be held
+     * under {@code holdId} by {@link #reserveRentals(List)}.
+     */
+    public List<Booking> createFromOrderItems(Map<String, Product> products, String userId, String orderId,
+            List<Cart.CartItem> rentals, Booking.BookingStatus status, String holdId) {
+        if (rentals.isEmpty())
+            return List.of();
+        List<Booking> bookings = rentals.stream()
+                .map(item -> buildBooking(products.get(item.getProductId()), userId, orderId, item.getStartDate(),
+                        item.getEndDate(), item.getQuantity(), status))
+                .toList();
+        bookings.forEach(booking -> booking.setReservationId(holdId));
+        return bookingRepo.insert(bookings);
     }
 
     public Booking updateStatus(String bookingId, Booking.BookingStatus status, Jwt jwt) {
@@ -134,13 +192,72 @@ public class BookingService {
         if (!SecurityUtils.isAdmin(jwt) && !owner && !(customer && status == Booking.BookingStatus.CANCELLED)) {
             throw new SecurityException("You are not allowed to update this booking");
         }
-        booking.setStatus(status);
-        booking.setUpdatedAt(LocalDateTime.now());
-        return bookingRepo.save(normalizeBooking(booking));
+        normalizeBooking(booking);
+        Booking.BookingStatus previous = booking.getStatus();
+        boolean wasActive = isActive(previous);
+        String newHold = !wasActive && isActive(status) ? reservationService.reserve(booking.getResourceType(),
+                booking.getResourceId(), booking.getStartDate(), booking.getEndDate()) : null;
+        Update update = new Update().set("status", status).set("updatedAt", LocalDateTime.now());
+        if (newHold != null)
+            update.set("reservationId", newHold);
+        // Conditional on the status read above: a cancel and a confirm racing on one booking cannot both apply,
+        // so a booking never ends up active on a hold the other request has already released
+        Booking saved;
+        try {
+            saved = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("id").is(bookingId).and("status").is(previous)), update,
+                    FindAndModifyOptions.options().returnNew(true), Booking.class);
+        } catch (RuntimeException ex) {
+            releaseHold(newHold, booking);
+            throw ex;
+        }
+        if (saved == null) {
+            releaseHold(newHold, booking);
+            throw new IllegalArgumentException("Booking was updated meanwhile, please reload and try again");
+        }
+        normalizeBooking(saved);
+        // Only active bookings block dates, so leaving PENDING/CONFIRMED frees them; a cancelled hold is released
+        // again even from COMPLETED, which is harmless because release only frees days this hold still owns
+        if ((wasActive && !isActive(status))
+                || (status == Booking.BookingStatus.CANCELLED && saved.getReservationId() != null))
+            reservationService.release(saved);
+        return saved;
+    }
+
+    private void releaseHold(String holdId, Booking booking) {
+        if (holdId != null)
+            reservationService.release(holdId, List.of(BookingReservationService.spanOf(booking)));
     }
 
+    private boolean isActive(Booking.BookingStatus status) {
+        return status == Booking.BookingStatus.PENDING || status == Booking.BookingStatus.CONFIRMED;
+    }
+
+    private Booking saveReserved(Booking booking) {
+        booking.setReservationId(reservationService.reserve(booking.getResourceType(), booking.getResourceId(),
+                booking.getStartDate(), booking.getEndDate()));
+        try {
+            return bookingRepo.save(booking);
+        } catch (RuntimeException ex) {
+            reservationService.release(booking);
+            throw ex;
+        }
+    }
+
+    private List<BookingReservationService.Span> rentalSpans(List<Cart.CartItem> rentals) {
+        return rentals.stream()
+                .map(item -> new BookingReservationService.Span(Booking.ResourceType.PRODUCT, item.getProductId(),
+                        item.getStartDate(), item.getEndDate()))
+                .toList();
+    }
+
+    // Straight from Mongo, as at checkout: a cached snapshot could price a product since hidden or withdrawn
     private Product loadProduct(String productId) {
-        return productRepo.findById(productId).orElseThrow(() -> new IllegalArgumentException("Product not found"));
+        Product product = productRepo.findById(productId).filter(p -> !p.isHidden())
+                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+        if (!product.isIsavailable())
+            throw new IllegalArgumentException("Product is not available: " + product.getName());
+        return product;
     }
 
     private Mastery loadMastery(String masteryId) {
@@ -199,7 +316,25 @@ public class BookingService {
                 .build();
     }
 
+    // Resolves the missing user and owner names of the whole list with one profile query
+    private List<Booking> normalizeAll(List<Booking> bookings) {
+        Set<String> userIds = new HashSet<>();
+        for (Booking booking : bookings) {
+            if (isBlank(booking.getUserName()))
+                userIds.add(booking.getUserId());
+            if (isBlank(booking.getOwnerName()))
+                userIds.add(booking.getOwnerId());
+        }
+        Map<String, String> names = displayNames.resolveAll(userIds);
+        return bookings.stream().map(booking -> normalizeBooking(booking, names)).toList();
+    }
+
     private Booking normalizeBooking(Booking booking) {
+        return normalizeBooking(booking,
+                displayNames.resolveAll(Arrays.asList(booking.getUserId(), booking.getOwnerId())));
+    }
+
+    private Booking normalizeBooking(Booking booking, Map<String, String> names) {
         if (booking.getResourceType() == null) {
             booking.setResourceType(
                     booking.getMasteryId() != null ? Booking.ResourceType.MASTERY : Booking.ResourceType.PRODUCT);
@@ -211,50 +346,21 @@ public class BookingService {
         if (booking.getResourceName() == null || booking.getResourceName().isBlank()) {
             booking.setResourceName(booking.getProductName());
         }
-        if (booking.getUserName() == null || booking.getUserName().isBlank()) {
-            booking.setUserName(resolveDisplayName(booking.getUserId()));
+        if (isBlank(booking.getUserName())) {
+            booking.setUserName(names.get(booking.getUserId()));
         }
-        if (booking.getOwnerName() == null || booking.getOwnerName().isBlank()) {
-            booking.setOwnerName(resolveDisplayName(booking.getOwnerId()));
+        if (isBlank(booking.getOwnerName())) {
+            booking.setOwnerName(names.get(booking.getOwnerId()));
         }
         return booking;
     }
 
     private String resolveDisplayName(String userId) {
-        if (userId == null || userId.isBlank()) {
-            return null;
-        }
-        if (userProfileRepo == null) {
-            return userId;
-        }
-        return userProfileRepo.findByUserId(userId)
-                .map(profile -> {
-                    String fullName = buildFullName(profile.getFirstName(), profile.getLastName());
-                    if (fullName != null) {
-                        return fullName;
-                    }
-                    if (profile.getUsername() != null && !profile.getUsername().isBlank()) {
-                        return profile.getUsername();
-                    }
-                    if (profile.getEmail() != null && !profile.getEmail().isBlank()) {
-                        return profile.getEmail();
-                    }
-                    return null;
-                })
-                .orElse(null);
-    }
-
-    private String buildFullName(String firstName, String lastName) {
-        if (firstName != null && !firstName.isBlank() && lastName != null && !lastName.isBlank()) {
-            return firstName.trim() + " " + lastName.trim();
-        }
-        if (firstName != null && !firstName.isBlank()) {
-            return firstName.trim();
-        }
-        if (lastName != null && !lastName.isBlank()) {
-            return lastName.trim();
-        }
-        return null;
+        return displayNames.resolve(userId);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
     private Booking.ResourceType resolveType(CreateBookingRequest request) {
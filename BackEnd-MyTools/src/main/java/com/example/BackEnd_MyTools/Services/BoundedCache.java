@@ -0,0 +1,154 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Small in-process LRU map whose entries expire a fixed time after they are put. The bound is a total weight:
+ * one per entry, or an estimate in bytes. Past it, the least recently used entries are evicted first. To avoid
+ * caching a value that was loaded before an invalidation, read {@link #generation()} before querying and pass it
+ * back to {@link #put}. Null values are cached like any other value.
+ * <p>
+ * Publishes cache.gets (result hit/miss), cache.evictions and cache.size, tagged with the cache name, plus
+ * cache.weight for byte-bounded caches.
+ */
+public final class BoundedCache<K, V> {
+    private record Entry<V>(V value, long weight, long expiresAt) {
+    }
+
+    private final long ttlNanos;
+    private final long maxWeight;
+    private final ToLongFunction<? super V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    private BoundedCache(String name, MeterRegistry meterRegistry, Duration ttl, long maxWeight,
+            ToLongFunction<? super V> weigher) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.size", this, BoundedCache::size).tag("cache", name).register(meterRegistry);
+    }
+
+    /** Holds at most {@code maxEntries} entries. */
+    public static <K, V> BoundedCache<K, V> ofEntries(String name, MeterRegistry meterRegistry, Duration ttl,
+            long maxEntries) {
+        return new BoundedCache<>(name, meterRegistry, ttl, maxEntries, value -> 1);
+    }
+
+    /** Holds at most {@code maxBytes} by the weigher's estimate; a single heavier value is not cached at all. */
+    public static <K, V> BoundedCache<K, V> ofBytes(String name, MeterRegistry meterRegistry, Duration ttl,
+            long maxBytes, ToLongFunction<? super V> weigher) {
+        BoundedCache<K, V> cache = new BoundedCache<>(name, meterRegistry, ttl, maxBytes, weigher);
+        Gauge.builder("cache.weight", cache, BoundedCache::weight).tag("cache", name).baseUnit("bytes")
+                .register(meterRegistry);
+        return cache;
+    }
+
+    /** The unexpired value, or null when there is none (or null was cached). Counts a hit or a miss. */
+    public V getIfPresent(K key) {
+        return key == null ? null : getAllPresent(List.of(key)).get(key);
+    }
+
+    /** Unexpired entries for the given keys; absent keys are missing from the map. Each key is a hit or a miss. */
+    public synchronized Map<K, V> getAllPresent(Collection<? extends K> keys) {
+        Map<K, V> found = new HashMap<>();
+        long now = System.nanoTime();
+        for (K key : new LinkedHashSet<>(keys)) {
+            if (key == null)
+                continue;
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - now > 0) {
+                hits.increment();
+                found.put(key, entry.value());
+                continue;
+            }
+            if (entry != null)
+                evict(key);
+            misses.increment();
+        }
+        return found;
+    }
+
+    /** Read before loading; pass to {@link #put} so the load is dropped if anything was invalidated meanwhile. */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public void put(K key, V value, long loadGeneration) {
+        Map<K, V> single = new HashMap<>();
+        single.put(key, value);
+        putAll(single, loadGeneration);
+    }
+
+    public synchronized void putAll(Map<? extends K, ? extends V> values, long loadGeneration) {
+        if (loadGeneration != generation)
+            return;
+        long expiresAt = System.nanoTime() + ttlNanos;
+        for (Map.Entry<? extends K, ? extends V> value : values.entrySet()) {
+            long entryWeight = weigher.applyAsLong(value.getValue());
+            if (value.getKey() == null || entryWeight > maxWeight)
+                continue;
+            Entry<V> previous = entries.put(value.getKey(), new Entry<>(value.getValue(), entryWeight, expiresAt));
+            if (previous != null)
+                weight -= previous.weight();
+            weight += entryWeight;
+        }
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Entry<V> evicted = eldest.next();
+            eldest.remove();
+            weight -= evicted.weight();
+            evictions.increment();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        Entry<V> removed = entries.remove(key);
+        if (removed != null)
+            weight -= removed.weight();
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    // Caller holds the lock
+    private void evict(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight();
+            evictions.increment();
+        }
+    }
+}
@@ -10,7 +10,6 @@ import com.example.BackEnd_MyTools.Entitys.Cart;
 import com.example.BackEnd_MyTools.Entitys.Product;
 import com.example.BackEnd_MyTools.Kafka.KafkaProducerService;
 import com.example.BackEnd_MyTools.Repositories.CartRepo;
-import com.example.BackEnd_MyTools.Repositories.ProductRepo;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -20,7 +19,7 @@ import org.springframework.stereotype.Service;
 public class CartService {
 
     private final CartRepo cartRepository;
-    private final ProductRepo productRepository;
+    private final ProductCache productCache;
     private final KafkaProducerService kafka;
 
     public Cart getOrCreateCart(String userId) {
@@ -38,7 +37,7 @@ public class CartService {
     }
 
     public Cart addItem(String userId, AddToCartRequest request) {
-        Product product = productRepository.findById(request.getProductId())
+        Product product = productCache.get(request.getProductId())
             .orElseThrow(() -> new IllegalArgumentException("Product not found"));
 
         if (!product.isIsavailable()) throw new IllegalArgumentException("Product is not available");
@@ -0,0 +1,20 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+
+/** Expressions shared by the denormalized unread counters kept next to notifications and conversations. */
+final class CounterUpdates {
+    private CounterUpdates() {}
+
+    /**
+     * {@code max(0, field - count)} for an update pipeline. A missing field counts as zero, and the floor keeps
+     * counters that predate the per-item read flags from going negative.
+     */
+    static AggregationExpression decrementToZero(String field, long count) {
+        return context -> new Document("$max", List.of(0L, new Document("$subtract",
+                List.of(new Document("$ifNull", List.of("$" + field, 0L)), count))));
+    }
+}
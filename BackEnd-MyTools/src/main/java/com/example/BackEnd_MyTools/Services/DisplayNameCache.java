@@ -0,0 +1,88 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.BackEnd_MyTools.Entitys.UserProfile;
+import com.example.BackEnd_MyTools.Repositories.UserProfileRepo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Short-lived cache of user display names. Lists resolve every name they need with {@link #resolveAll}, which
+ * loads all misses with a single $in query. Users without a profile are cached too, so they are not looked up
+ * again on every row.
+ */
+@Component
+public class DisplayNameCache {
+    private final UserProfileRepo userProfileRepo;
+    // The cached name is null when the user has no profile or the profile has no usable name
+    private final BoundedCache<String, String> entries;
+
+    public DisplayNameCache(UserProfileRepo userProfileRepo, MeterRegistry meterRegistry,
+            @Value("${mytools.cache.display-name.ttl:PT2M}") Duration ttl,
+            @Value("${mytools.cache.display-name.max-entries:50000}") int maxEntries) {
+        this.userProfileRepo = userProfileRepo;
+        this.entries = BoundedCache.ofEntries("display-name", meterRegistry, ttl, maxEntries);
+    }
+
+    public String resolve(String userId) {
+        if (userId == null || userId.isBlank())
+            return null;
+        return resolveAll(List.of(userId)).get(userId);
+    }
+
+    /** Display names by user id; ids without a name map to null. */
+    public Map<String, String> resolveAll(Collection<String> userIds) {
+        List<String> wanted = userIds.stream().filter(userId -> userId != null && !userId.isBlank()).toList();
+        long loadGeneration = entries.generation();
+        Map<String, String> names = entries.getAllPresent(wanted);
+        List<String> missing = wanted.stream().filter(userId -> !names.containsKey(userId)).distinct().toList();
+        if (missing.isEmpty())
+            return names;
+        Map<String, String> loaded = new HashMap<>();
+        missing.forEach(userId -> loaded.put(userId, null));
+        for (UserProfile profile : userProfileRepo.findNamesByUserIdIn(missing))
+            loaded.put(profile.getUserId(), displayName(profile));
+        entries.putAll(loaded, loadGeneration);
+        names.putAll(loaded);
+        return names;
+    }
+
+    public void invalidate(String userId) {
+        entries.invalidate(userId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    static String displayName(UserProfile profile) {
+        String fullName = fullName(profile.getFirstName(), profile.getLastName());
+        if (fullName != null)
+            return fullName;
+        if (profile.getUsername() != null && !profile.getUsername().isBlank())
+            return profile.getUsername();
+        if (profile.getEmail() != null && !profile.getEmail().isBlank())
+            return profile.getEmail();
+        return null;
+    }
+
+    private static String fullName(String firstName, String lastName) {
+        boolean first = firstName != null && !firstName.isBlank();
+        boolean last = lastName != null && !lastName.isBlank();
+        if (first && last)
+            return firstName.trim() + " " + lastName.trim();
+        if (first)
+            return firstName.trim();
+        if (last)
+            return lastName.trim();
+        return null;
+    }
+}
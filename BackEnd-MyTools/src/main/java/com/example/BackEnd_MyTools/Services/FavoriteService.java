@@ -13,7 +13,6 @@ import com.example.BackEnd_MyTools.Entitys.Product;
 import com.example.BackEnd_MyTools.Kafka.KafkaProducerService;
 import com.example.BackEnd_MyTools.Repositories.FavoriteRepo;
 import com.example.BackEnd_MyTools.Repositories.MasteryRepo;
-import com.example.BackEnd_MyTools.Repositories.ProductRepo;
 
 import lombok.RequiredArgsConstructor;
 
@@ -25,7 +24,7 @@ public class FavoriteService {
     public static final String MASTERY = "MASTERY";
 
     private final FavoriteRepo favoriteRepository;
-    private final ProductRepo productRepository;
+    private final ProductCache productCache;
     private final MasteryRepo masteryRepository;
     private final KafkaProducerService kafka;
 
@@ -93,7 +92,7 @@ public class FavoriteService {
     }
 
     private Favorite buildProductFavorite(String userId, String productId) {
-        Product product = productRepository.findById(productId)
+        Product product = productCache.get(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found"));
 
         Favorite favorite = new Favorite();
@@ -159,7 +158,7 @@ public class FavoriteService {
         // Owner notification is intentionally best-effort; favorite actions must not fail if Kafka is down.
         try {
             if (PRODUCT.equals(type)) {
-                productRepository.findById(targetId).ifPresent(product -> {
+                productCache.get(targetId).ifPresent(product -> {
                     if (product.getOwnerId() != null && !product.getOwnerId().equals(userId)) {
                         kafka.sendNotification(product.getOwnerId(), "PRODUCT_FAVORITED", "Someone liked your product!",
                                 product.getName() + " was added to a wishlist", targetId);
@@ -10,8 +10,17 @@ import com.example.BackEnd_MyTools.Repositories.AnswerRepo;
 import com.example.BackEnd_MyTools.Repositories.QuestionRepo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -30,6 +39,11 @@ public class ForumService {
     private final AnswerRepo answerRepo;
     private final PhotoService photoService;
     private final KafkaProducerService kafka;
+    private final MongoTemplate mongoTemplate;
+    private final QuestionViewCounter viewCounter;
+
+    private static final int MAX_FEED_PAGE_SIZE = 50;
+    private static final int MAX_FEED_ANSWERS = 10;
 
     /* ── Questions ─────────────────────────────── */
 
@@ -47,11 +61,13 @@ public class ForumService {
         return questionRepo.findAll(pageable);
     }
 
+    /* ── Read-only: the view is counted by QuestionViewCounter and written later ── */
     public Question getQuestion(String id) {
         Question q = questionRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
-        q.setViewCount(q.getViewCount() + 1);
-        return questionRepo.save(q);
+        viewCounter.record(id);
+        q.setViewCount(q.getViewCount() + (int) viewCounter.pending(id));
+        return q;
     }
 
     /* ── askQuestion now receives JWT directly ── */
@@ -133,20 +149,20 @@ public class ForumService {
                 .orElseThrow(() -> new RuntimeException("Question not found"));
         if (q.getAuthorId().equals(userId))
             throw new RuntimeException("Cannot vote your own question");
-        if (q.getUpvotedBy() == null)
-            q.setUpvotedBy(new ArrayList<>());
+        if (!upvote)
+            return q;
 
-        if (upvote) {
-            if (!q.getUpvotedBy().contains(userId)) {
-                q.getUpvotedBy().add(userId);
-                q.setUpvotes(q.getUpvotes() + 1);
-            } else {
-                // toggle off
-                q.getUpvotedBy().remove(userId);
-                q.setUpvotes(q.getUpvotes() - 1);
-            }
-        }
-        return questionRepo.save(q);
+        // Targeted update so the vote never overwrites view counts flushed in the meantime
+        boolean voted = q.getUpvotedBy() != null && q.getUpvotedBy().contains(userId);
+        Criteria target = Criteria.where("id").is(questionId);
+        Query query = new Query(voted ? target.and("upvotedBy").is(userId) : target.and("upvotedBy").ne(userId));
+        Update update = voted
+                ? new Update().pull("upvotedBy", userId).inc("upvotes", -1) // toggle off
+                : new Update().addToSet("upvotedBy", userId).inc("upvotes", 1);
+        Question updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Question.class);
+        // Null when a concurrent toggle got there first; report the current state
+        return updated != null ? updated : questionRepo.findById(questionId).orElse(q);
     }
 
     /* ── Vote toggle (answer) ── */
@@ -192,7 +208,8 @@ public class ForumService {
         answerRepo.save(a);
         q.setSolved(true);
         q.setAcceptedAnswerId(answerId);
-        questionRepo.save(q);
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(q.getId())),
+                new Update().set("solved", true).set("acceptedAnswerId", answerId), Question.class);
 
         try {
             kafka.sendNotification(a.getAuthorId(), "ANSWER_ACCEPTED",
@@ -228,14 +245,51 @@ public class ForumService {
     }
 
     /* ── Forum feed ── */
-    public List<ForumQuestionDTO> getForumFeed() {
-        return questionRepo.findAll().stream()
-                .map(q -> new ForumQuestionDTO(
-                        q,
-                        answerRepo.findByQuestionIdOrderByUpvotesDesc(q.getId()),
-                        (int) answerRepo.countByQuestionId(q.getId())))
-                .sorted((a, b) -> b.getQuestion().getCreatedAt()
-                        .compareTo(a.getQuestion().getCreatedAt()))
-                .toList();
+
+    /**
+     * Newest questions first, each with its top {@code answers} answers by upvotes and its total answer count.
+     * One aggregation sorts and pages the questions in the database, then a single $lookup fetches the top
+     * answers and the count for the whole page.
+     */
+    public Page<ForumQuestionDTO> getForumFeed(int page, int size, int answers) {
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+        int topAnswers = Math.max(1, Math.min(answers, MAX_FEED_ANSWERS));
+        PageRequest pageable = PageRequest.of(Math.max(0, page), pageSize, Sort.by("createdAt").descending());
+
+        List<ForumQuestionDTO> content = new ArrayList<>();
+        for (Document row : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Question.class))
+                .aggregate(feedPipeline(mongoTemplate.getCollectionName(Answer.class), pageable.getOffset(), pageSize,
+                        topAnswers))) {
+            Question question = mongoTemplate.getConverter().read(Question.class, row);
+            Document summary = row.getList("answerSummary", Document.class).stream()
+                    .findFirst().orElse(new Document());
+            List<Answer> top = summary.getList("top", Document.class, List.of()).stream()
+                    .map(doc -> mongoTemplate.getConverter().read(Answer.class, doc))
+                    .toList();
+            int count = summary.getList("total", Document.class, List.of()).stream()
+                    .findFirst().map(total -> ((Number) total.get("n")).intValue()).orElse(0);
+            content.add(new ForumQuestionDTO(question, top, count));
+        }
+        // The estimate reads collection metadata instead of counting every question
+        return new PageImpl<>(content, pageable, mongoTemplate.estimatedCount(Question.class));
+    }
+
+    static List<Document> feedPipeline(String answerCollection, long offset, int limit, int topAnswers) {
+        Document answerLookup = new Document("from", answerCollection)
+                // Answer.questionId holds the question id as a string
+                .append("let", new Document("qid", new Document("$toString", "$_id")))
+                .append("pipeline", List.of(
+                        new Document("$match", new Document("$expr",
+                                new Document("$eq", List.of("$questionId", "$$qid")))),
+                        new Document("$facet", new Document("top", List.of(
+                                new Document("$sort", new Document("upvotes", -1).append("_id", 1)),
+                                new Document("$limit", topAnswers)))
+                                .append("total", List.of(new Document("$count", "n"))))))
+                .append("as", "answerSummary");
+        return List.of(
+                new Document("$sort", new Document("createdAt", -1).append("_id", -1)),
+                new Document("$skip", offset),
+                new Document("$limit", limit),
+                new Document("$lookup", answerLookup));
     }
 }
\ No newline at end of file
@@ -2,8 +2,16 @@ package com.example.BackEnd_MyTools.Services;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 
@@ -11,12 +19,15 @@ import com.example.BackEnd_MyTools.DTO.SendMessageRequest;
 import com.example.BackEnd_MyTools.DTO.StartConversationRequest;
 import com.example.BackEnd_MyTools.Entitys.ChatMessage;
 import com.example.BackEnd_MyTools.Entitys.Conversation;
+import com.example.BackEnd_MyTools.Kafka.UserDestinationRelay;
 import com.example.BackEnd_MyTools.Repositories.ChatMessageRepo;
 import com.example.BackEnd_MyTools.Repositories.ConversationRepo;
 import com.example.BackEnd_MyTools.Repositories.DemandeRepo;
 import com.example.BackEnd_MyTools.Repositories.MasteryRepo;
 import com.example.BackEnd_MyTools.Repositories.ProductRepo;
 import com.example.BackEnd_MyTools.Security.SecurityUtils;
+import com.example.BackEnd_MyTools.Specifications.ConversationCursor;
+import com.example.BackEnd_MyTools.Specifications.MessageCursor;
 
 import lombok.RequiredArgsConstructor;
 
@@ -29,28 +40,132 @@ public class MessagingService {
     private final MasteryRepo masteryRepo;
     private final DemandeRepo demandeRepo;
     private final NotificationService notificationService;
+    private final MongoTemplate mongoTemplate;
+    private final UserDestinationRelay userDestinationRelay;
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int DEFAULT_INBOX_SIZE = 20;
+
+    // User destinations, subscribed to as /user/queue/... by an authenticated STOMP session
+    static final String MESSAGES_QUEUE = "/queue/messages";
+    static final String TYPING_QUEUE = "/queue/typing";
+    static final String RECEIPTS_QUEUE = "/queue/receipts";
+
+    /**
+     * Messages oldest first. {@code before} loads the page preceding this one (null when the start of the
+     * conversation is reached); {@code since} is the cursor for polling newer messages, and {@code more} is set
+     * when a since-poll was cut off at the page size.
+     */
+    public record MessagePage(List<ChatMessage> items, String before, String since, boolean more) {
+    }
+
+    public record InboxPage(List<InboxEntry> items, String next) {
+    }
+
+    /** A conversation as one participant sees it in their inbox. */
+    public record InboxEntry(String id, List<String> participantIds, String resourceType, String resourceId,
+            String lastMessage, String lastSenderId, LocalDateTime lastMessageAt, LocalDateTime updatedAt,
+            long unread) {
+
+        static InboxEntry of(Conversation conversation, String userId) {
+            return new InboxEntry(conversation.getId(), conversation.getParticipantIds(),
+                    conversation.getResourceType(), conversation.getResourceId(), conversation.getLastMessage(),
+                    conversation.getLastSenderId(), conversation.getLastMessageAt(), conversation.getUpdatedAt(),
+                    conversation.unreadFor(userId));
+        }
+    }
+
+    /** Pushed to the other participant while a user is (or stops) typing; never stored. */
+    public record TypingEvent(String conversationId, String userId, boolean typing) {
+    }
+
+    /** Pushed to the sender when the receiver has read their messages up to {@code readAt}. */
+    public record ReadReceipt(String conversationId, String readerId, long count, LocalDateTime readAt) {
+    }
+
+    /** Every conversation of the user, newest first, straight from the inbox index. */
     public List<Conversation> myConversations(String userId) {
-        List<Conversation> conversations = new ArrayList<>(conversationRepo.findByParticipantId(userId));
-        conversations.sort((a, b) -> {
-            if (a.getUpdatedAt() == null && b.getUpdatedAt() == null)
-                return 0;
-            if (a.getUpdatedAt() == null)
-                return 1;
-            if (b.getUpdatedAt() == null)
-                return -1;
-            return b.getUpdatedAt().compareTo(a.getUpdatedAt());
-        });
-        return conversations;
-    }
-
-    public List<ChatMessage> messages(String conversationId, Jwt jwt) {
+        return mongoTemplate.find(inboxQuery(userId, null, null), Conversation.class);
+    }
+
+    /**
+     * One page of the user's inbox, newest first, with their unread count and the last-message snapshot for
+     * each conversation. {@code cursor} is the {@code next} token of the previous page.
+     */
+    public InboxPage inbox(String userId, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_INBOX_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        ConversationCursor after = ConversationCursor.decode(cursor);
+        List<Conversation> rows = mongoTemplate.find(inboxQuery(userId, after == null ? null : after.after(),
+                pageSize), Conversation.class);
+        List<Conversation> page = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        String next = rows.size() > pageSize ? ConversationCursor.of(page.get(page.size() - 1)).encode() : null;
+        return new InboxPage(page.stream().map(c -> InboxEntry.of(c, userId)).toList(), next);
+    }
+
+    // Without a page size the whole inbox is returned; otherwise one extra row tells whether another page exists
+    static Query inboxQuery(String userId, Criteria cursor, Integer pageSize) {
+        Criteria criteria = Criteria.where("participantIds").is(userId);
+        if (cursor != null)
+            criteria = new Criteria().andOperator(criteria, cursor);
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "updatedAt", "id"));
+        return pageSize == null ? query : query.limit(pageSize + 1);
+    }
+
+    /** The whole conversation, oldest first, for clients that predate paging. */
+    public List<ChatMessage> thread(String conversationId, Jwt jwt) {
+        String userId = SecurityUtils.currentUserId(jwt);
+        Conversation conversation = conversationRepo.findById(conversationId)
+                .orElseThrow(() -> new IllegalArgumentException("Conversation not found"));
+        if (!conversation.getParticipantIds().contains(userId))
+            throw new SecurityException("You cannot read this conversation");
+        return mongoTemplate.find(new Query(Criteria.where("conversationId").is(conversationId))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "id")), ChatMessage.class);
+    }
+
+    /**
+     * One page of a conversation, oldest first. Without a cursor it is the newest {@code limit} messages;
+     * {@code before} pages back through older history and {@code since} returns only messages newer than a
+     * cursor the client already has.
+     */
+    public MessagePage messages(String conversationId, Jwt jwt, String before, String since, Integer limit) {
         String userId = SecurityUtils.currentUserId(jwt);
         Conversation conversation = conversationRepo.findById(conversationId)
                 .orElseThrow(() -> new IllegalArgumentException("Conversation not found"));
         if (!conversation.getParticipantIds().contains(userId))
             throw new SecurityException("You cannot read this conversation");
-        return chatMessageRepo.findByConversationIdOrderByCreatedAtAsc(conversationId);
+        if (before != null && !before.isBlank() && since != null && !since.isBlank())
+            throw new IllegalArgumentException("Use either before or since, not both");
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        MessageCursor newerThan = MessageCursor.decode(since);
+        if (newerThan != null) {
+            List<ChatMessage> rows = mongoTemplate.find(historyQuery(conversationId, newerThan.after(),
+                    Sort.Direction.ASC, pageSize), ChatMessage.class);
+            List<ChatMessage> items = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+            String next = items.isEmpty() ? since : MessageCursor.of(items.get(items.size() - 1)).encode();
+            return new MessagePage(items, null, next, rows.size() > pageSize);
+        }
+
+        MessageCursor olderThan = MessageCursor.decode(before);
+        List<ChatMessage> rows = mongoTemplate.find(historyQuery(conversationId,
+                olderThan == null ? null : olderThan.before(), Sort.Direction.DESC, pageSize), ChatMessage.class);
+        boolean older = rows.size() > pageSize;
+        List<ChatMessage> items = new ArrayList<>(older ? rows.subList(0, pageSize) : rows);
+        Collections.reverse(items);
+        String previous = older ? MessageCursor.of(items.get(0)).encode() : null;
+        String next = items.isEmpty() ? null : MessageCursor.of(items.get(items.size() - 1)).encode();
+        return new MessagePage(items, previous, next, false);
+    }
+
+    // One extra row tells whether another page exists
+    static Query historyQuery(String conversationId, Criteria cursor, Sort.Direction direction, int pageSize) {
+        Criteria criteria = Criteria.where("conversationId").is(conversationId);
+        if (cursor != null)
+            criteria = new Criteria().andOperator(criteria, cursor);
+        return new Query(criteria)
+                .with(Sort.by(new Sort.Order(direction, "createdAt"), new Sort.Order(direction, "id")))
+                .limit(pageSize + 1);
     }
 
     public ChatMessage send(Jwt jwt, SendMessageRequest request) {
@@ -69,14 +184,78 @@ public class MessagingService {
                 .read(false)
                 .createdAt(LocalDateTime.now())
                 .build();
-        ChatMessage saved = chatMessageRepo.save(message);
-        conversation.setLastMessage(request.getBody());
-        conversation.setUpdatedAt(LocalDateTime.now());
-        conversationRepo.save(conversation);
+        Query conversationQuery = new Query(Criteria.where("id").is(conversation.getId()));
+        // Counted before the insert: a markRead that flips the new message then always finds the increment to take
+        // back, instead of flooring at 0 and leaving the counter stuck above 0 once the $inc lands
+        mongoTemplate.updateFirst(conversationQuery, new Update().inc("unread." + receiverId, 1), Conversation.class);
+        ChatMessage saved;
+        try {
+            saved = chatMessageRepo.save(message);
+        } catch (RuntimeException ex) {
+            mongoTemplate.updateFirst(conversationQuery, AggregationUpdate.update().set("unread." + receiverId)
+                    .toValue(CounterUpdates.decrementToZero("unread." + receiverId, 1)), Conversation.class);
+            throw ex;
+        }
+        // Snapshot changes in place, so concurrent sends in both directions never overwrite each other
+        mongoTemplate.updateFirst(conversationQuery, new Update()
+                .set("lastMessage", saved.getBody())
+                .set("lastSenderId", senderId)
+                .set("lastMessageAt", saved.getCreatedAt())
+                .set("updatedAt", saved.getCreatedAt()), Conversation.class);
         notificationService.create(receiverId, "MESSAGE", "New message", request.getBody(), conversation.getId());
+        // The sender's copy keeps their other tabs and devices in step
+        push(receiverId, MESSAGES_QUEUE, saved);
+        push(senderId, MESSAGES_QUEUE, saved);
         return saved;
     }
 
+    public void typing(Jwt jwt, String conversationId, boolean typing) {
+        String userId = SecurityUtils.currentUserId(jwt);
+        Conversation conversation = participantConversation(conversationId, userId);
+        otherParticipant(conversation, userId)
+                .ifPresent(other -> push(other, TYPING_QUEUE, new TypingEvent(conversationId, userId, typing)));
+    }
+
+    /**
+     * Marks every unread message addressed to the caller in this conversation as read with one update, takes them
+     * off the caller's inbox counter and sends a receipt to the other participant when anything changed.
+     */
+    public ReadReceipt markRead(Jwt jwt, String conversationId) {
+        String userId = SecurityUtils.currentUserId(jwt);
+        Conversation conversation = participantConversation(conversationId, userId);
+        LocalDateTime readAt = LocalDateTime.now();
+        long count = mongoTemplate.updateMulti(new Query(Criteria.where("conversationId").is(conversationId)
+                .and("receiverId").is(userId)
+                .and("read").is(false)
+                .and("createdAt").lte(readAt)), new Update().set("read", true), ChatMessage.class)
+                .getModifiedCount();
+        ReadReceipt receipt = new ReadReceipt(conversationId, userId, count, readAt);
+        if (count > 0) {
+            // Only what this call marked: a message sent after readAt stays unread
+            mongoTemplate.updateFirst(new Query(Criteria.where("id").is(conversationId)), AggregationUpdate.update()
+                    .set("unread." + userId).toValue(CounterUpdates.decrementToZero("unread." + userId, count)),
+                    Conversation.class);
+            otherParticipant(conversation, userId).ifPresent(other -> push(other, RECEIPTS_QUEUE, receipt));
+        }
+        return receipt;
+    }
+
+    private Conversation participantConversation(String conversationId, String userId) {
+        Conversation conversation = conversationRepo.findById(conversationId)
+                .orElseThrow(() -> new IllegalArgumentException("Conversation not found"));
+        if (!conversation.getParticipantIds().contains(userId))
+            throw new SecurityException("You cannot access this conversation");
+        return conversation;
+    }
+
+    private static Optional<String> otherParticipant(Conversation conversation, String userId) {
+        return conversation.getParticipantIds().stream().filter(id -> !id.equals(userId)).findFirst();
+    }
+
+    private void push(String userId, String destination, Object payload) {
+        userDestinationRelay.convertAndSendToUser(userId, destination, payload);
+    }
+
     private Conversation resolveConversation(String senderId, SendMessageRequest request) {
         if (request.getConversationId() != null && !request.getConversationId().isBlank()) {
             Conversation conversation = conversationRepo.findById(request.getConversationId())
@@ -1,23 +1,32 @@
 package com.example.BackEnd_MyTools.Services;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 
-import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import com.example.BackEnd_MyTools.Entitys.Notification;
+import com.example.BackEnd_MyTools.Entitys.NotificationCounter;
+import com.example.BackEnd_MyTools.Kafka.UserDestinationRelay;
 import com.example.BackEnd_MyTools.Repositories.NotificationRepo;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
     private final NotificationRepo notificationRepo;
-    private final ObjectProvider<SimpMessagingTemplate> messagingTemplateProvider;
+    private final UserDestinationRelay userDestinationRelay;
+    private final MongoTemplate mongoTemplate;
 
+    @Timed(value = "mytools.notifications.create")
     public Notification create(String userId, String type, String title, String message, String referenceId) {
         if (userId == null || userId.isBlank()) {
             throw new IllegalArgumentException("Notification userId is required");
@@ -31,11 +40,19 @@ public class NotificationService {
             .read(false)
             .createdAt(LocalDateTime.now())
             .build();
-        Notification saved = notificationRepo.save(notification);
-        SimpMessagingTemplate messagingTemplate = messagingTemplateProvider.getIfAvailable();
-        if (messagingTemplate != null) {
-            messagingTemplate.convertAndSendToUser(userId, "/queue/notifications", saved);
+        // Counted before the insert: a markAllRead that flips the new row then always finds the increment to
+        // take back, instead of flooring at 0 and leaving the badge stuck at 1 once the $inc lands.
+        // Upsert: a user's first notification creates the counter; older ones were seeded by NotificationCounterBackfill
+        mongoTemplate.upsert(counterQuery(userId),
+                new Update().inc("unread", 1).set("updatedAt", Instant.now()), NotificationCounter.class);
+        Notification saved;
+        try {
+            saved = notificationRepo.save(notification);
+        } catch (RuntimeException ex) {
+            decrementUnread(userId, 1);
+            throw ex;
         }
+        userDestinationRelay.convertAndSendToUser(userId, "/queue/notifications", saved);
         return saved;
     }
 
@@ -43,8 +60,10 @@ public class NotificationService {
         return notificationRepo.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
+    /** The badge count: one read by _id. No counter means the user never had an unread notification. */
     public long unreadCount(String userId) {
-        return notificationRepo.countByUserIdAndReadFalse(userId);
+        NotificationCounter counter = mongoTemplate.findById(userId, NotificationCounter.class);
+        return counter != null ? Math.max(0, counter.getUnread()) : 0;
     }
 
     public Notification markRead(String notificationId, String userId) {
@@ -53,13 +72,34 @@ public class NotificationService {
         if (!notification.getUserId().equals(userId)) {
             throw new SecurityException("You can only update your own notifications");
         }
+        // Conditional on read=false, so two concurrent clicks take one off the counter once
+        long flipped = mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(notificationId).and("read").is(false)),
+                new Update().set("read", true), Notification.class).getModifiedCount();
+        decrementUnread(userId, flipped);
         notification.setRead(true);
-        return notificationRepo.save(notification);
+        return notification;
     }
 
-    public void markAllRead(String userId) {
-        List<Notification> notifications = notificationRepo.findByUserIdOrderByCreatedAtDesc(userId);
-        notifications.forEach(n -> n.setRead(true));
-        notificationRepo.saveAll(notifications);
+    /** One updateMany over the user's unread notifications instead of rewriting their whole history. */
+    public long markAllRead(String userId) {
+        long flipped = mongoTemplate.updateMulti(
+                new Query(Criteria.where("userId").is(userId).and("read").is(false)),
+                new Update().set("read", true), Notification.class).getModifiedCount();
+        decrementUnread(userId, flipped);
+        return flipped;
+    }
+
+    // Subtracts what was actually marked rather than zeroing, so a notification created meanwhile stays counted
+    private void decrementUnread(String userId, long count) {
+        if (count <= 0)
+            return;
+        mongoTemplate.updateFirst(counterQuery(userId), AggregationUpdate.update()
+                .set("unread").toValue(CounterUpdates.decrementToZero("unread", count))
+                .set("updatedAt").toValue(Instant.now()), NotificationCounter.class);
+    }
+
+    private static Query counterQuery(String userId) {
+        return new Query(Criteria.where("id").is(userId));
     }
 }
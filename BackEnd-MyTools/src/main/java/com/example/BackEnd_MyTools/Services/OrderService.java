@@ -2,7 +2,11 @@ package com.example.BackEnd_MyTools.Services;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -20,6 +24,7 @@ import com.example.BackEnd_MyTools.Repositories.OrderRepo;
 import com.example.BackEnd_MyTools.Repositories.ProductRepo;
 import com.example.BackEnd_MyTools.Security.SecurityUtils;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -32,7 +37,9 @@ public class OrderService {
     private final BookingService bookingService;
     private final NotificationService notificationService;
     private final KafkaProducerService kafkaProducerService;
+    private final AnalyticsCounterService analyticsCounters;
 
+    @Timed(value = "mytools.orders.checkout", description = "Cart checkout, including booking holds")
     public Order checkout(Jwt jwt, CheckoutRequest request) {
         String buyerId = SecurityUtils.currentUserId(jwt);
         Cart cart = cartRepo.findByUserIdAndStatus(buyerId, Cart.CartStatus.ACTIVE)
@@ -52,10 +59,18 @@ public class OrderService {
         order.setCreatedAt(LocalDateTime.now());
         order.setUpdatedAt(LocalDateTime.now());
 
+        // Prices and availability come straight from Mongo in one $in: the product cache may be stale, and on
+        // other nodes its invalidation never arrives
+        Map<String, Product> products = new HashMap<>();
+        productRepo.findAllById(cart.getItems().stream().map(Cart.CartItem::getProductId).distinct().toList())
+            .forEach(product -> products.put(product.getId(), product));
+        List<Cart.CartItem> rentals = new ArrayList<>();
         double total = 0;
         for (Cart.CartItem cartItem : cart.getItems()) {
-            Product product = productRepo.findById(cartItem.getProductId())
-                .orElseThrow(() -> new IllegalArgumentException("Product not found: " + cartItem.getProductId()));
+            Product product = products.get(cartItem.getProductId());
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found: " + cartItem.getProductId());
+            }
             if (!product.isIsavailable()) {
                 throw new IllegalArgumentException("Product is not available: " + product.getName());
             }
@@ -67,10 +82,8 @@ public class OrderService {
                     throw new IllegalArgumentException("Rental dates are required for " + product.getName());
                 }
                 rentalDays = Math.max(1, ChronoUnit.DAYS.between(cartItem.getStartDate(), cartItem.getEndDate()));
-                if (bookingService.hasConflict(product.getId(), cartItem.getStartDate(), cartItem.getEndDate())) {
-                    throw new IllegalArgumentException("Product is already booked for selected dates: " + product.getName());
-                }
                 lineTotal = product.getPrice() * rentalDays * Math.max(1, cartItem.getQuantity());
+                rentals.add(cartItem);
             } else {
                 lineTotal = product.getPrice() * Math.max(1, cartItem.getQuantity());
             }
@@ -90,15 +103,28 @@ public class OrderService {
                 .build());
         }
 
-        order.setTotalAmount(total);
-        Order saved = orderRepo.save(order);
+        Set<String> conflicts = bookingService.findConflictingProducts(rentals);
+        if (!conflicts.isEmpty()) {
+            throw new IllegalArgumentException("Product is already booked for selected dates: "
+                + products.get(conflicts.iterator().next()).getName());
+        }
 
-        for (Cart.CartItem cartItem : cart.getItems()) {
-            if (cartItem.getListingType() == Cart.CartItem.ListingType.RENT) {
-                Product product = productRepo.findById(cartItem.getProductId()).orElseThrow();
-                bookingService.createFromOrderItem(product, buyerId, saved.getId(), cartItem, Booking.BookingStatus.PENDING);
-            }
+        order.setTotalAmount(total);
+        // The hold is what makes double-booking impossible; the query above only fails fast on the common case
+        String holdId = bookingService.reserveRentals(rentals);
+        Order created = null;
+        try {
+            created = orderRepo.save(order);
+            bookingService.createFromOrderItems(products, buyerId, created.getId(), rentals,
+                Booking.BookingStatus.PENDING, holdId);
+        } catch (RuntimeException ex) {
+            // Also removes any bookings a partly failed bulk insert left behind
+            bookingService.releaseRentals(holdId, rentals);
+            if (created != null) orderRepo.deleteById(created.getId());
+            throw ex;
         }
+        Order saved = created;
+        analyticsCounters.orderPlaced(saved);
 
         cartService.checkoutCart(buyerId);
         notificationService.create(buyerId, "ORDER_CREATED", "Order placed", "Your order " + saved.getInvoiceNumber() + " has been created.", saved.getId());
@@ -140,10 +166,12 @@ public class OrderService {
         if (!SecurityUtils.isAdmin(jwt) && !seller && !buyerCancel) {
             throw new SecurityException("You are not allowed to update this order");
         }
+        Order.OrderStatus previous = order.getStatus();
         order.setStatus(status);
         order.setUpdatedAt(LocalDateTime.now());
         if (status == Order.OrderStatus.DELIVERED) order.setDeliveredAt(LocalDateTime.now());
         Order saved = orderRepo.save(order);
+        analyticsCounters.orderStatusChanged(saved, previous);
         notificationService.create(order.getBuyerId(), "ORDER_STATUS", "Order updated", "Your order is now " + status.name().toLowerCase(), saved.getId());
         return saved;
     }
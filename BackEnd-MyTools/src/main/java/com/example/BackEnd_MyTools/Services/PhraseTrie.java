@@ -0,0 +1,44 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Word-level trie: each edge is one lowercase token, so multi-word phrases ("power drill", "less than") are
+ * matched with a single walk from the current token. Built once and never mutated after publication.
+ */
+final class PhraseTrie<V> {
+    private final Node<V> root = new Node<>();
+
+    private static final class Node<V> {
+        private final Map<String, Node<V>> children = new HashMap<>();
+        private V value;
+    }
+
+    /** A phrase that ends at token index {@code end} (exclusive). */
+    record Match<V>(V value, int end) {
+    }
+
+    void put(String[] phrase, V value) {
+        if (phrase.length == 0)
+            return;
+        Node<V> node = root;
+        for (String token : phrase)
+            node = node.children.computeIfAbsent(token, t -> new Node<>());
+        node.value = value;
+    }
+
+    /** Longest phrase starting at {@code start}, or null when no phrase starts there. */
+    Match<V> longestMatch(String[] tokens, int start) {
+        Node<V> node = root;
+        Match<V> best = null;
+        for (int i = start; i < tokens.length; i++) {
+            node = node.children.get(tokens[i]);
+            if (node == null)
+                break;
+            if (node.value != null)
+                best = new Match<>(node.value, i + 1);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.BackEnd_MyTools.Entitys.Product;
+import com.example.BackEnd_MyTools.Repositories.ProductRepo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Read-through cache for product detail lookups. Entries expire after a TTL and the cache is bounded by the
+ * estimated size of the cached documents, evicting least recently used entries first. Writes go through
+ * {@link ProductService}, which invalidates the affected id. Cached products are shared: treat them as
+ * read-only.
+ */
+@Component
+public class ProductCache {
+    private final ProductRepo productRepo;
+    private final BoundedCache<String, Product> entries;
+
+    public ProductCache(ProductRepo productRepo, MeterRegistry meterRegistry,
+            @Value("${mytools.cache.product.ttl:PT60S}") Duration ttl,
+            @Value("${mytools.cache.product.max-bytes:33554432}") long maxWeight) {
+        this.productRepo = productRepo;
+        this.entries = BoundedCache.ofBytes("product", meterRegistry, ttl, maxWeight, ProductCache::estimateWeight);
+    }
+
+    public Optional<Product> get(String id) {
+        if (id == null)
+            return Optional.empty();
+        long loadGeneration = entries.generation();
+        Product cached = entries.getIfPresent(id);
+        if (cached != null)
+            return Optional.of(cached);
+        Optional<Product> loaded = productRepo.findById(id);
+        loaded.ifPresent(product -> entries.put(product.getId(), product, loadGeneration));
+        return loaded;
+    }
+
+    /** Products by id; every miss is loaded with a single $in query. Unknown ids are absent from the map. */
+    public Map<String, Product> getAll(Collection<String> ids) {
+        long loadGeneration = entries.generation();
+        Map<String, Product> found = entries.getAllPresent(ids);
+        List<String> missing = ids.stream().filter(id -> id != null && !found.containsKey(id)).distinct().toList();
+        if (!missing.isEmpty()) {
+            Map<String, Product> loaded = new HashMap<>();
+            productRepo.findAllById(missing).forEach(product -> loaded.put(product.getId(), product));
+            entries.putAll(loaded, loadGeneration);
+            found.putAll(loaded);
+        }
+        return found;
+    }
+
+    public void invalidate(String id) {
+        entries.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long weight() {
+        return entries.weight();
+    }
+
+    // Rough heap footprint: fixed object overhead plus two bytes per char of every string field
+    static long estimateWeight(Product product) {
+        long bytes = 256;
+        bytes += chars(product.getName()) + chars(product.getDescription()) + chars(product.getOwnerId())
+                + chars(product.getCity()) + chars(product.getCurrencyId()) + chars(product.getModerationStatus());
+        if (product.getTags() != null)
+            for (String tag : product.getTags())
+                bytes += 40 + chars(tag);
+        if (product.getPhotoUrls() != null)
+            for (String url : product.getPhotoUrls())
+                bytes += 40 + chars(url);
+        return bytes;
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : 2L * value.length();
+    }
+}
@@ -4,42 +4,154 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Circle;
 import org.springframework.data.geo.Point;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 
 import com.example.BackEnd_MyTools.Entitys.Product;
 import com.example.BackEnd_MyTools.Repositories.ProductRepo;
 import com.example.BackEnd_MyTools.Security.SecurityUtils;
+import com.example.BackEnd_MyTools.Specifications.ProductCursor;
 import com.example.BackEnd_MyTools.Specifications.ProductSpecs;
 
+import io.micrometer.core.annotation.Timed;
+
 @Service
 public class ProductService {
+    private static final double EARTH_RADIUS_KM = 6378.1;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String[] LIST_FIELDS = { "id", "name", "categoryId", "markId", "serieNum", "description",
+            "currencyId", "price", "listedForId", "duration", "ownerId", "city", "latitude", "longitude",
+            "isavailable", "photoUrls", "createdAt" };
+
+    public record ProductPage(List<Product> items, String nextCursor) {
+    }
+
+    /** Structured constraints for a listing search; null fields are unconstrained. */
+    public record ListingSearch(Integer categoryId, Integer markId, Integer minPrice, Integer maxPrice,
+            Integer listedForId, String city, String text) {
+    }
+
     private final ProductRepo productRepo;
     private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final AnalyticsCounterService analyticsCounters;
 
-    public ProductService(ProductRepo productRepo, MongoTemplate mongoTemplate) {
+    public ProductService(ProductRepo productRepo, MongoTemplate mongoTemplate, ProductCache productCache,
+            AnalyticsCounterService analyticsCounters) {
         this.productRepo = productRepo;
         this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.analyticsCounters = analyticsCounters;
     }
 
     public List<Product> getAllProducts() {
         return productRepo.findAll();
     }
 
+    @Timed(value = "mytools.products.search", description = "Filtered product listing")
     public List<Product> getAllProductsSpecs(Integer categoryId, Integer markId, Boolean available, String name,
             Double latitude, Double longitude, Double radiusKm, String ownerId) {
+        return mongoTemplate.find(listingQuery(categoryId, markId, available, name, latitude, longitude, radiusKm,
+                ownerId), Product.class);
+    }
+
+    Query listingQuery(Integer categoryId, Integer markId, Boolean available, String name, Double latitude,
+            Double longitude, Double radiusKm, String ownerId) {
+        TextCriteria text = ProductSpecs.matchesText(name);
+        boolean geo = latitude != null && longitude != null && radiusKm != null && radiusKm > 0;
+        List<Criteria> criteriaList = listingCriteria(categoryId, markId, available, ownerId);
+        // $text cannot be combined with $nearSphere, so a text search filters by radius and ranks by score
+        if (geo && text != null)
+            criteriaList.add(withinRadius(latitude, longitude, radiusKm));
+
+        Query query = text != null ? TextQuery.queryText(text).sortByScore() : new Query();
+        query.addCriteria(new Criteria().andOperator(criteriaList.toArray(new Criteria[0])));
+        if (geo && text == null) {
+            query.addCriteria(Criteria.where("location").nearSphere(new Point(longitude, latitude))
+                    .maxDistance(radiusKm / EARTH_RADIUS_KM));
+        }
+        return query;
+    }
+
+    /**
+     * Keyset-paginated listing ordered by (createdAt desc, _id desc). Only the fields used by list views are
+     * loaded. A radius filter uses $geoWithin instead of $nearSphere so the stable sort order is preserved.
+     */
+    public ProductPage getProductsPage(Integer categoryId, Integer markId, Boolean available, String name,
+            Double latitude, Double longitude, Double radiusKm, String ownerId, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Product> rows = mongoTemplate.find(pageQuery(categoryId, markId, available, name, latitude, longitude,
+                radiusKm, ownerId, cursor, pageSize), Product.class);
+        if (rows.size() <= pageSize)
+            return new ProductPage(rows, null);
+        List<Product> items = rows.subList(0, pageSize);
+        return new ProductPage(items, ProductCursor.of(items.get(pageSize - 1)).encode());
+    }
+
+    Query pageQuery(Integer categoryId, Integer markId, Boolean available, String name, Double latitude,
+            Double longitude, Double radiusKm, String ownerId, String cursor, int pageSize) {
+        List<Criteria> criteriaList = listingCriteria(categoryId, markId, available, ownerId);
+        if (latitude != null && longitude != null && radiusKm != null && radiusKm > 0)
+            criteriaList.add(withinRadius(latitude, longitude, radiusKm));
+        ProductCursor after = ProductCursor.decode(cursor);
+        if (after != null)
+            criteriaList.add(after.after());
+
+        Query query = new Query(new Criteria().andOperator(criteriaList.toArray(new Criteria[0])));
+        TextCriteria text = ProductSpecs.matchesText(name);
+        if (text != null)
+            query.addCriteria(text);
+        query.with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")))
+                .limit(pageSize + 1);
+        query.fields().include(LIST_FIELDS);
+        return query;
+    }
+
+    /**
+     * Available listings matching every constraint of the search, evaluated entirely in Mongo. Results are ranked
+     * by text score when a term is given, newest first otherwise, and never exceed {@code limit}.
+     */
+    public List<Product> searchListings(ListingSearch search, int limit) {
+        return mongoTemplate.find(searchQuery(search, limit), Product.class);
+    }
+
+    Query searchQuery(ListingSearch search, int limit) {
+        List<Criteria> criteriaList = listingCriteria(search.categoryId(), search.markId(), true, null);
+        Criteria price = ProductSpecs.hasPriceBetween(search.minPrice(), search.maxPrice());
+        Criteria listedFor = ProductSpecs.offersListingType(search.listedForId());
+        Criteria city = ProductSpecs.hasCity(search.city());
+        if (price != null)
+            criteriaList.add(price);
+        if (listedFor != null)
+            criteriaList.add(listedFor);
+        if (city != null)
+            criteriaList.add(city);
+
+        TextCriteria text = ProductSpecs.matchesText(search.text());
+        Query query = text != null ? TextQuery.queryText(text).sortByScore()
+                : new Query().with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+        query.addCriteria(new Criteria().andOperator(criteriaList.toArray(new Criteria[0])));
+        query.limit(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return query;
+    }
+
+    private List<Criteria> listingCriteria(Integer categoryId, Integer markId, Boolean available, String ownerId) {
         List<Criteria> criteriaList = new ArrayList<>();
 
         Criteria c1 = ProductSpecs.hasCategoryId(categoryId);
         Criteria c2 = ProductSpecs.hasMarkId(markId);
         Criteria c3 = ProductSpecs.isAvailable(available);
-        Criteria c4 = ProductSpecs.hasNameLike(name);
-        Criteria c5 = ProductSpecs.hasOwnerId(ownerId);
+        Criteria c4 = ProductSpecs.hasOwnerId(ownerId);
 
         if (c1 != null)
             criteriaList.add(c1);
@@ -49,25 +161,17 @@ public class ProductService {
             criteriaList.add(c3);
         if (c4 != null)
             criteriaList.add(c4);
-        if (c5 != null)
-            criteriaList.add(c5);
-        criteriaList.add(
-                new Criteria().orOperator(Criteria.where("hidden").exists(false), Criteria.where("hidden").is(false)));
-
-        Query query = new Query();
-        if (!criteriaList.isEmpty()) {
-            query.addCriteria(new Criteria().andOperator(criteriaList.toArray(new Criteria[0])));
-        }
-        if (latitude != null && longitude != null && radiusKm != null && radiusKm > 0) {
-            query.addCriteria(Criteria.where("location").nearSphere(new Point(longitude, latitude))
-                    .maxDistance(radiusKm / 6378.1));
-        }
+        criteriaList.add(ProductSpecs.isVisible());
+        return criteriaList;
+    }
 
-        return mongoTemplate.find(query, Product.class);
+    private Criteria withinRadius(double latitude, double longitude, double radiusKm) {
+        return Criteria.where("location")
+                .withinSphere(new Circle(new Point(longitude, latitude), radiusKm / EARTH_RADIUS_KM));
     }
 
     public Product getProductById(String id) {
-        Product product = productRepo.findById(id).orElse(null);
+        Product product = productCache.get(id).orElse(null);
         if (product != null && product.isHidden())
             return null;
         return product;
@@ -83,7 +187,10 @@ public class ProductService {
         product.setUpdatedAt(Instant.now());
         product.setModerationStatus(product.getModerationStatus() == null ? "APPROVED" : product.getModerationStatus());
         syncLocation(product);
-        return productRepo.save(product);
+        Product saved = productRepo.save(product);
+        productCache.invalidate(saved.getId());
+        analyticsCounters.productAdded(ownerId);
+        return saved;
     }
 
     public Product updateProduct(String id, Product updatedProduct, Jwt jwt) {
@@ -109,7 +216,9 @@ public class ProductService {
             }
             product.setUpdatedAt(Instant.now());
             syncLocation(product);
-            return productRepo.save(product);
+            Product saved = productRepo.save(product);
+            productCache.invalidate(id);
+            return saved;
         }).orElseThrow(() -> new IllegalArgumentException("Product not found"));
     }
 
@@ -117,6 +226,8 @@ public class ProductService {
         Product product = productRepo.findById(id).orElseThrow(() -> new IllegalArgumentException("Product not found"));
         assertCanManage(product, jwt);
         productRepo.deleteById(id);
+        productCache.invalidate(id);
+        analyticsCounters.productRemoved(product.getOwnerId());
     }
 
     public Product hideProduct(String id, Jwt jwt) {
@@ -126,7 +237,9 @@ public class ProductService {
         product.setHidden(true);
         product.setModerationStatus("HIDDEN");
         product.setUpdatedAt(Instant.now());
-        return productRepo.save(product);
+        Product saved = productRepo.save(product);
+        productCache.invalidate(id);
+        return saved;
     }
 
     private void assertCanManage(Product product, Jwt jwt) {
@@ -137,6 +250,8 @@ public class ProductService {
     }
 
     private void syncLocation(Product product) {
+        // A client-supplied cityKey never wins over the one derived from city
+        product.setCityKey(Product.cityKey(product.getCity()));
         if (product.getLatitude() != null && product.getLongitude() != null) {
             product.setLocation(new GeoJsonPoint(product.getLongitude(), product.getLatitude()));
         }
@@ -0,0 +1,106 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.example.BackEnd_MyTools.Entitys.Product;
+import com.example.BackEnd_MyTools.Specifications.ProductCursor;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.FindIterable;
+
+/**
+ * Runs explain() on the canonical Product listing queries, built by the same ProductService code that serves
+ * them, so a query shape that falls back to a collection scan shows up in staging.
+ */
+@Service
+public class QueryPlanService {
+    private final ProductService productService;
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    public QueryPlanService(ProductService productService, MongoTemplate mongoTemplate,
+            MongoMappingContext mappingContext) {
+        this.productService = productService;
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    public record QueryPlanReport(String name, Document filter, String plan, List<String> indexes,
+            boolean collectionScan, long keysExamined, long docsExamined, long returned) {
+    }
+
+    public List<QueryPlanReport> explainProductQueries() {
+        Map<String, Query> canonical = new LinkedHashMap<>();
+        canonical.put("listing.category", productService.listingQuery(1, null, true, null, null, null, null, null));
+        canonical.put("listing.mark", productService.listingQuery(null, 1, true, null, null, null, null, null));
+        canonical.put("listing.owner", productService.listingQuery(null, null, null, null, null, null, null, "U001"));
+        canonical.put("listing.near", productService.listingQuery(1, null, true, null, 34.0, -6.8, 25.0, null));
+        canonical.put("listing.text", productService.listingQuery(null, null, true, "drill", null, null, null, null));
+        canonical.put("page.first", productService.pageQuery(null, null, true, null, null, null, null, null, null, 20));
+        canonical.put("page.category.deep", productService.pageQuery(1, null, true, null, null, null, null, null,
+                new ProductCursor(Instant.now(), "ffffffffffffffffffffffff").encode(), 20));
+        canonical.put("search.category.price", productService.searchQuery(
+                new ProductService.ListingSearch(1, null, 100, 500, null, null, null), 50));
+
+        List<QueryPlanReport> reports = new ArrayList<>();
+        canonical.forEach((name, query) -> reports.add(explain(name, query)));
+        return reports;
+    }
+
+    private QueryPlanReport explain(String name, Query query) {
+        MongoPersistentEntity<?> entity = mappingContext.getPersistentEntity(Product.class);
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        Document filter = mapper.getMappedObject(query.getQueryObject(), entity);
+
+        FindIterable<Document> find = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+                .find(filter)
+                .sort(mapper.getMappedSort(query.getSortObject(), entity))
+                .projection(mapper.getMappedFields(query.getFieldsObject(), entity));
+        if (query.getLimit() > 0)
+            find.limit(query.getLimit());
+        Document explain = find.explain(ExplainVerbosity.EXECUTION_STATS);
+
+        Document planner = explain.get("queryPlanner", Document.class);
+        Document winning = planner == null ? null : planner.get("winningPlan", Document.class);
+        if (winning != null && winning.containsKey("queryPlan"))
+            winning = winning.get("queryPlan", Document.class);
+        List<String> stages = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        collectStages(winning, stages, indexes);
+
+        Document stats = explain.get("executionStats", Document.class);
+        return new QueryPlanReport(name, filter, String.join(" <- ", stages), indexes, stages.contains("COLLSCAN"),
+                number(stats, "totalKeysExamined"), number(stats, "totalDocsExamined"), number(stats, "nReturned"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collectStages(Document stage, List<String> stages, List<String> indexes) {
+        if (stage == null)
+            return;
+        if (stage.getString("stage") != null)
+            stages.add(stage.getString("stage"));
+        if (stage.getString("indexName") != null)
+            indexes.add(stage.getString("indexName"));
+        collectStages(stage.get("inputStage", Document.class), stages, indexes);
+        Object inputs = stage.get("inputStages");
+        if (inputs instanceof List<?> list)
+            ((List<Object>) list).stream().filter(Document.class::isInstance)
+                    .forEach(child -> collectStages((Document) child, stages, indexes));
+    }
+
+    private long number(Document stats, String key) {
+        Object value = stats == null ? null : stats.get(key);
+        return value instanceof Number n ? n.longValue() : 0;
+    }
+}
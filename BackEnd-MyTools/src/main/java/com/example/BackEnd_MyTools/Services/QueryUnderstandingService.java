@@ -0,0 +1,185 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.BackEnd_MyTools.Entitys.Lookups;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Turns a free-text product query into structured listing constraints. Category names and synonyms, brands and
+ * cities come from the lookup collection; they are compiled with the fixed intent and price keywords into one
+ * {@link PhraseTrie} that is walked once per query.
+ */
+@Slf4j
+@Service
+public class QueryUnderstandingService {
+    static final String CATEGORY = "CATEGORY";
+    static final String CATEGORY_SYNONYM = "CATEGORY_SYNONYM";
+    static final String MARK = "MARK";
+    static final String CITY = "CITY";
+
+    private enum Kind {
+        CATEGORY, MARK, CITY, RENT, SALE, PRICE_MAX, PRICE_MIN, PRICE_BETWEEN, LOCATION
+    }
+
+    private record Rule(Kind kind, Integer code, String label) {
+    }
+
+    private final LookupService lookupService;
+    private volatile PhraseTrie<Rule> rules;
+
+    public QueryUnderstandingService(LookupService lookupService) {
+        this.lookupService = lookupService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        PhraseTrie<Rule> trie = new PhraseTrie<>();
+        addKeywords(trie);
+        try {
+            for (Lookups l : lookupService.getActiveLookupsByType(CATEGORY))
+                putLookup(trie, l.getValue(), Kind.CATEGORY, l.getCode());
+            for (Lookups l : lookupService.getActiveLookupsByType(CATEGORY_SYNONYM)) {
+                for (String term : l.getValue().split(","))
+                    putLookup(trie, term, Kind.CATEGORY, l.getCode());
+            }
+            for (Lookups l : lookupService.getActiveLookupsByType(MARK))
+                putLookup(trie, l.getValue(), Kind.MARK, l.getCode());
+            for (Lookups l : lookupService.getActiveLookupsByType(CITY))
+                trie.put(tokenize(l.getValue()), new Rule(Kind.CITY, null, l.getValue()));
+        } catch (RuntimeException ex) {
+            log.warn("Search rules loaded without lookups → {}", ex.getMessage());
+        }
+        rules = trie;
+    }
+
+    public ProductService.ListingSearch parse(String query) {
+        PhraseTrie<Rule> trie = rules;
+        if (trie == null) {
+            reload();
+            trie = rules;
+        }
+        String[] tokens = tokenize(query);
+        Integer categoryId = null, markId = null, minPrice = null, maxPrice = null, listedForId = null;
+        String city = null;
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < tokens.length;) {
+            PhraseTrie.Match<Rule> match = trie.longestMatch(tokens, i);
+            if (match == null) {
+                append(text, tokens[i++]);
+                continue;
+            }
+            Rule rule = match.value();
+            int next = match.end();
+            switch (rule.kind()) {
+                case CATEGORY -> {
+                    if (categoryId == null)
+                        categoryId = rule.code();
+                    // Category words stay in the text so they still rank matches
+                    for (int t = i; t < next; t++)
+                        append(text, tokens[t]);
+                }
+                case MARK -> markId = markId == null ? rule.code() : markId;
+                case CITY -> city = city == null ? rule.label() : city;
+                case RENT -> listedForId = 1;
+                case SALE -> listedForId = listedForId == null ? 0 : listedForId;
+                case PRICE_MAX, PRICE_MIN, PRICE_BETWEEN -> {
+                    Integer amount = next < tokens.length ? number(tokens[next]) : null;
+                    if (amount == null) {
+                        for (int t = i; t < next; t++)
+                            append(text, tokens[t]);
+                        break;
+                    }
+                    next++;
+                    if (rule.kind() == Kind.PRICE_MAX) {
+                        maxPrice = amount;
+                    } else {
+                        minPrice = amount;
+                        Integer upper = rule.kind() == Kind.PRICE_BETWEEN && next + 1 < tokens.length
+                                && "and".equals(tokens[next]) ? number(tokens[next + 1]) : null;
+                        if (upper != null) {
+                            maxPrice = upper;
+                            next += 2;
+                        }
+                    }
+                }
+                case LOCATION -> {
+                    // Only a known city counts: "drill in good condition" keeps "in good condition" as text
+                    PhraseTrie.Match<Rule> place = next < tokens.length ? trie.longestMatch(tokens, next) : null;
+                    if (place != null && place.value().kind() == Kind.CITY) {
+                        city = city == null ? place.value().label() : city;
+                        next = place.end();
+                    } else {
+                        for (int t = i; t < next; t++)
+                            append(text, tokens[t]);
+                    }
+                }
+            }
+            i = next;
+        }
+        return new ProductService.ListingSearch(categoryId, markId, minPrice, maxPrice, listedForId, city,
+                text.isEmpty() ? null : text.toString());
+    }
+
+    private static void addKeywords(PhraseTrie<Rule> trie) {
+        for (String phrase : List.of("rent", "rental", "renting", "for rent", "to rent", "hire", "lease"))
+            trie.put(phrase.split(" "), new Rule(Kind.RENT, null, null));
+        for (String phrase : List.of("sale", "for sale", "buy", "to buy", "purchase"))
+            trie.put(phrase.split(" "), new Rule(Kind.SALE, null, null));
+        for (String phrase : List.of("under", "below", "less than", "cheaper than", "max", "up to"))
+            trie.put(phrase.split(" "), new Rule(Kind.PRICE_MAX, null, null));
+        for (String phrase : List.of("over", "above", "more than", "min", "from"))
+            trie.put(phrase.split(" "), new Rule(Kind.PRICE_MIN, null, null));
+        trie.put(new String[] { "between" }, new Rule(Kind.PRICE_BETWEEN, null, null));
+        for (String phrase : List.of("in", "near", "around"))
+            trie.put(new String[] { phrase }, new Rule(Kind.LOCATION, null, null));
+    }
+
+    private static void putLookup(PhraseTrie<Rule> trie, String value, Kind kind, String code) {
+        Integer id = number(code == null ? "" : code.trim());
+        if (value != null && id != null)
+            trie.put(tokenize(value), new Rule(kind, id, null));
+    }
+
+    /** Lowercase letter/digit runs; everything else separates tokens. */
+    static String[] tokenize(String input) {
+        if (input == null)
+            return new String[0];
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (!current.isEmpty()) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.isEmpty())
+            tokens.add(current.toString());
+        return tokens.toArray(new String[0]);
+    }
+
+    private static Integer number(String token) {
+        if (token.isEmpty() || token.length() > 9)
+            return null;
+        for (int i = 0; i < token.length(); i++)
+            if (!Character.isDigit(token.charAt(i)))
+                return null;
+        return Integer.valueOf(token);
+    }
+
+    private static void append(StringBuilder text, String token) {
+        if (!text.isEmpty())
+            text.append(' ');
+        text.append(token);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.BackEnd_MyTools.Services;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.BackEnd_MyTools.Entitys.Question;
+import com.mongodb.bulk.BulkWriteError;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind view counts for forum questions. A view only bumps a {@link LongAdder}; every few seconds the
+ * pending counts go out as one unordered bulk of $inc updates, so reading a question never writes it and
+ * concurrent views are never lost to a read-modify-write. Updates that fail are put back for the next flush.
+ * <p>
+ * Views take no lock. An adder idle for a whole flush is retired: views that see the flag move to a fresh adder,
+ * and one that passed the check just before still lands on the retired adder, which the next flush drains.
+ */
+@Slf4j
+@Component
+public class QuestionViewCounter {
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, PendingViews> pending = new ConcurrentHashMap<>();
+    // Retired by the previous flush, drained once more by the next one; only touched under the flush lock
+    private List<Map.Entry<String, PendingViews>> retiring = new ArrayList<>();
+
+    public QuestionViewCounter(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        Gauge.builder("forum.views.pending", pending, Map::size)
+                .description("Questions with views not yet written").register(meterRegistry);
+    }
+
+    private static final class PendingViews {
+        final LongAdder views = new LongAdder();
+        volatile boolean retired;
+    }
+
+    public void record(String questionId) {
+        add(questionId, 1);
+    }
+
+    /** Views recorded since the last flush, to add to a freshly read count. */
+    public long pending(String questionId) {
+        PendingViews entry = pending.get(questionId);
+        return entry == null ? 0 : entry.views.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${mytools.forum.view-flush-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<String, Long> increments = new LinkedHashMap<>();
+        List<Map.Entry<String, PendingViews>> stillRetiring = new ArrayList<>();
+        for (Map.Entry<String, PendingViews> retired : retiring) {
+            long late = retired.getValue().views.sumThenReset();
+            if (late != 0) {
+                increments.merge(retired.getKey(), late, Long::sum);
+                stillRetiring.add(retired);
+            }
+        }
+        retiring = stillRetiring;
+        pending.forEach((id, entry) -> {
+            long views = entry.views.sumThenReset();
+            if (views != 0) {
+                increments.merge(id, views, Long::sum);
+            } else {
+                entry.retired = true;
+                pending.remove(id, entry);
+                retiring.add(Map.entry(id, entry));
+            }
+        });
+        if (increments.isEmpty())
+            return;
+        List<String> ids = new ArrayList<>(increments.keySet());
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Question.class);
+            ids.forEach(id -> bulk.updateOne(new Query(Criteria.where("id").is(id)),
+                    new Update().inc("viewCount", increments.get(id))));
+            bulk.execute();
+        } catch (BulkOperationException ex) {
+            // Unordered: every update without an error was applied, so only the failed ones go back
+            Set<String> failed = new HashSet<>();
+            for (BulkWriteError error : ex.getErrors())
+                failed.add(ids.get(error.getIndex()));
+            failed.forEach(id -> add(id, increments.get(id)));
+            log.warn("Failed to write views for {} questions, retrying next flush: {}", failed.size(),
+                    ex.getMessage());
+        } catch (RuntimeException ex) {
+            increments.forEach(this::add);
+            log.warn("Failed to write views for {} questions, retrying next flush: {}", increments.size(),
+                    ex.getMessage());
+        }
+    }
+
+    private void add(String questionId, long views) {
+        while (true) {
+            // get() first: computeIfAbsent may lock the bin even when the key is there
+            PendingViews entry = pending.get(questionId);
+            if (entry == null)
+                entry = pending.computeIfAbsent(questionId, key -> new PendingViews());
+            if (!entry.retired) {
+                entry.views.add(views);
+                return;
+            }
+            // flush is retiring this adder; clear it out of the way and take a fresh one
+            pending.remove(questionId, entry);
+        }
+    }
+}
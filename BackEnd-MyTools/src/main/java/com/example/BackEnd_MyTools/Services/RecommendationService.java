@@ -14,9 +14,10 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class RecommendationService {
     private final ProductRepo productRepo;
+    private final ProductCache productCache;
 
     public List<Product> similarProducts(String productId) {
-        Product product = productRepo.findById(productId).orElseThrow(() -> new IllegalArgumentException("Product not found"));
+        Product product = productCache.get(productId).orElseThrow(() -> new IllegalArgumentException("Product not found"));
         List<Product> sameCategory = productRepo.findRecommended(product.getCategoryId(), product.getId());
         if (sameCategory.size() >= 8 || product.getTags() == null || product.getTags().isEmpty()) return sameCategory;
         List<Product> all = productRepo.findAll();
@@ -19,6 +19,7 @@ public class ReviewService {
 
     private final ReviewRepo reviewRepository;
     private final OrderRepo orderRepository;
+    private final AnalyticsCounterService analyticsCounters;
 
     public List<Review> getProductReviews(String productId) { return reviewRepository.findByProductId(productId); }
     public List<Review> getMasteryReviews(String masteryId) { return reviewRepository.findByMasteryId(masteryId); }
@@ -40,13 +41,16 @@ public class ReviewService {
         review.setComment(req.getComment());
         review.setVerifiedPurchase(verified);
         review.setCreatedAt(LocalDateTime.now());
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        analyticsCounters.reviewAdded(saved);
+        return saved;
     }
 
     public void deleteReview(String reviewId, String userId) {
         Review review = reviewRepository.findById(reviewId).orElseThrow(() -> new IllegalArgumentException("Review not found"));
         if (!review.getUserId().equals(userId)) throw new SecurityException("You can only delete your own reviews");
         reviewRepository.delete(review);
+        analyticsCounters.reviewRemoved(review);
     }
 
     public double getAverageRating(String productId) {
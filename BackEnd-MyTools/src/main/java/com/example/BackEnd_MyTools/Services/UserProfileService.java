@@ -16,6 +16,7 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class UserProfileService {
     private final UserProfileRepo userProfileRepo;
+    private final DisplayNameCache displayNames;
 
     public UserProfile getOrCreate(Jwt jwt) {
         String userId = SecurityUtils.currentUserId(jwt);
@@ -28,7 +29,9 @@ public class UserProfileService {
             profile.setLastName(jwt.getClaimAsString("family_name"));
             profile.setCreatedAt(LocalDateTime.now());
             profile.setUpdatedAt(LocalDateTime.now());
-            return userProfileRepo.save(profile);
+            UserProfile saved = userProfileRepo.save(profile);
+            displayNames.invalidate(userId);
+            return saved;
         });
     }
 
@@ -44,6 +47,8 @@ public class UserProfileService {
         if (request.getBio() != null) profile.setBio(request.getBio());
         if (request.getAvatarPhotoId() != null) profile.setAvatarPhotoId(request.getAvatarPhotoId());
         profile.setUpdatedAt(LocalDateTime.now());
-        return userProfileRepo.save(profile);
+        UserProfile saved = userProfileRepo.save(profile);
+        displayNames.invalidate(saved.getUserId());
+        return saved;
     }
 }
@@ -0,0 +1,47 @@
+package com.example.BackEnd_MyTools.Specifications;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import com.example.BackEnd_MyTools.Entitys.Conversation;
+
+/**
+ * Opaque keyset cursor for the inbox, ordered newest first by (updatedAt, _id). Same token format as
+ * {@link MessageCursor}.
+ */
+public record ConversationCursor(LocalDateTime updatedAt, String id) {
+
+    public static ConversationCursor of(Conversation conversation) {
+        return new ConversationCursor(conversation.getUpdatedAt(), conversation.getId());
+    }
+
+    public String encode() {
+        String raw = updatedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ConversationCursor decode(String token) {
+        if (token == null || token.isBlank())
+            return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep <= 0 || sep == raw.length() - 1)
+                throw new IllegalArgumentException("Invalid cursor");
+            return new ConversationCursor(LocalDateTime.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /** Conversations after this cursor in inbox order, i.e. updated earlier. */
+    public Criteria after() {
+        return new Criteria().orOperator(
+                Criteria.where("updatedAt").lt(updatedAt),
+                new Criteria().andOperator(Criteria.where("updatedAt").is(updatedAt), Criteria.where("id").lt(id)));
+    }
+}
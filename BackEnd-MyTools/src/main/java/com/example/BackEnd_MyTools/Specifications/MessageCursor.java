@@ -0,0 +1,54 @@
+package com.example.BackEnd_MyTools.Specifications;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import com.example.BackEnd_MyTools.Entitys.ChatMessage;
+
+/**
+ * Opaque keyset cursor for conversation history ordered by (createdAt, _id). Like {@link ProductCursor}, clients
+ * only see the encoded token.
+ */
+public record MessageCursor(LocalDateTime createdAt, String id) {
+
+    public static MessageCursor of(ChatMessage message) {
+        return new MessageCursor(message.getCreatedAt(), message.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MessageCursor decode(String token) {
+        if (token == null || token.isBlank())
+            return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep <= 0 || sep == raw.length() - 1)
+                throw new IllegalArgumentException("Invalid cursor");
+            return new MessageCursor(LocalDateTime.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /** Messages strictly older than this cursor. */
+    public Criteria before() {
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").lt(createdAt),
+                new Criteria().andOperator(Criteria.where("createdAt").is(createdAt), Criteria.where("id").lt(id)));
+    }
+
+    /** Messages strictly newer than this cursor. */
+    public Criteria after() {
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").gt(createdAt),
+                new Criteria().andOperator(Criteria.where("createdAt").is(createdAt), Criteria.where("id").gt(id)));
+    }
+}
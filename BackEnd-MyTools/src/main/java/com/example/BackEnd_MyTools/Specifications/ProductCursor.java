@@ -0,0 +1,53 @@
+package com.example.BackEnd_MyTools.Specifications;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import com.example.BackEnd_MyTools.Entitys.Product;
+
+/**
+ * Opaque keyset cursor for product listings sorted by (createdAt desc, _id desc).
+ * Clients only ever see the encoded token, so the format can change freely.
+ */
+public record ProductCursor(Instant createdAt, String id) {
+
+    public static ProductCursor of(Product product) {
+        return new ProductCursor(product.getCreatedAt(), product.getId());
+    }
+
+    public String encode() {
+        String raw = (createdAt == null ? "" : String.valueOf(createdAt.toEpochMilli())) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token) {
+        if (token == null || token.isBlank())
+            return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep < 0 || sep == raw.length() - 1)
+                throw new IllegalArgumentException("Invalid cursor");
+            String millis = raw.substring(0, sep);
+            Instant createdAt = millis.isEmpty() ? null : Instant.ofEpochMilli(Long.parseLong(millis));
+            return new ProductCursor(createdAt, raw.substring(sep + 1));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /** Everything strictly after this cursor in (createdAt desc, _id desc) order. */
+    public Criteria after() {
+        if (createdAt == null) {
+            // Legacy rows without createdAt sort last; page through them by id only.
+            return new Criteria().andOperator(Criteria.where("createdAt").is(null), Criteria.where("id").lt(id));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").lt(createdAt),
+                new Criteria().andOperator(Criteria.where("createdAt").is(createdAt), Criteria.where("id").lt(id)),
+                Criteria.where("createdAt").is(null));
+    }
+}
@@ -1,10 +1,25 @@
 package com.example.BackEnd_MyTools.Specifications;
 
+import java.util.regex.Pattern;
+
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+
+import com.example.BackEnd_MyTools.Entitys.Product;
 
 public class ProductSpecs {
     public static Criteria hasNameLike(String name) {
-        return name != null ? Criteria.where("name").regex(".*" + name + ".*", "i") : null;
+        return name != null ? Criteria.where("name").regex(Pattern.quote(name), "i") : null;
+    }
+
+    // Served by the text index on name/description/tags
+    public static TextCriteria matchesText(String term) {
+        return term != null && !term.isBlank() ? TextCriteria.forDefaultLanguage().matching(term) : null;
+    }
+
+    // Equality so it can lead the compound indexes; legacy rows without the field are backfilled at startup
+    public static Criteria isVisible() {
+        return Criteria.where("hidden").is(false);
     }
 
     public static Criteria hasCategoryId(Integer categoryId) {
@@ -45,4 +60,18 @@ public class ProductSpecs {
         return listedForId != null ? Criteria.where("listedForId").is(listedForId) : null;
     }
 
+    // listedForId: 0 = sale, 1 = rent, 2 = sale and rent; a listing of type 2 satisfies either intent
+    public static Criteria offersListingType(Integer listedForId) {
+        if (listedForId == null)
+            return null;
+        return listedForId == 2 ? Criteria.where("listedForId").is(2)
+                : Criteria.where("listedForId").in(listedForId, 2);
+    }
+
+    // Equality on the normalized key stored with every product, so the city filter can use an index
+    public static Criteria hasCity(String city) {
+        String key = Product.cityKey(city);
+        return key != null ? Criteria.where("cityKey").is(key) : null;
+    }
+
 }
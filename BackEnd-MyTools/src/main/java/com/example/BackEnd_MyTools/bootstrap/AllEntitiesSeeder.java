@@ -106,6 +106,7 @@ public class AllEntitiesSeeder {
                         items.add(l);
                 }
                 lookupRepository.saveAll(items);
+                // CATEGORY_SYNONYM and CITY rows are added by SearchLookupMigration, which also covers older databases
         }
 
         private void seedUsers() {
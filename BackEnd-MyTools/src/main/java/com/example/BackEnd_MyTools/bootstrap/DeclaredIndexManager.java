@@ -0,0 +1,58 @@
+package com.example.BackEnd_MyTools.bootstrap;
+
+import java.util.List;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import com.example.BackEnd_MyTools.Entitys.Answer;
+import com.example.BackEnd_MyTools.Entitys.Booking;
+import com.example.BackEnd_MyTools.Entitys.ChatMessage;
+import com.example.BackEnd_MyTools.Entitys.Conversation;
+import com.example.BackEnd_MyTools.Entitys.Notification;
+import com.example.BackEnd_MyTools.Entitys.Question;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ensures the indexes declared on the forum, messaging, notification, order and booking entities. Auto index
+ * creation is off, and without them the forum feed sorts every question, each answer lookup scans the Answer
+ * collection, every history page sorts the whole conversation, every inbox page sorts all of a user's
+ * conversations and every analytics trend scans all orders and bookings.
+ */
+@Slf4j
+@Component
+@Order(0)
+public class DeclaredIndexManager implements ApplicationRunner {
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    public DeclaredIndexManager(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        // Entitys.Order is spelled out: the simple name is taken by the @Order annotation
+        for (Class<?> type : List.of(Question.class, Answer.class, ChatMessage.class, Conversation.class,
+                Notification.class, com.example.BackEnd_MyTools.Entitys.Order.class, Booking.class)) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            resolver.resolveIndexFor(type).forEach(index -> {
+                try {
+                    indexOps.ensureIndex(index);
+                } catch (RuntimeException ex) {
+                    log.warn("Could not ensure {} index {} → {}", type.getSimpleName(), index.getIndexKeys(),
+                            ex.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.BackEnd_MyTools.bootstrap;
+
+import java.time.Instant;
+
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.example.BackEnd_MyTools.Entitys.Notification;
+import com.example.BackEnd_MyTools.Entitys.NotificationCounter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Seeds a notification_counters row for every user with unread notifications but no counter yet, from one
+ * $group over the unread notifications. Rows are upserts with $setOnInsert only, so it is safe on every start and
+ * never overwrites a live counter. Runs before lifecycle beans start, so this node has not created a notification
+ * (and with it a counter holding only the newest one) before the seed.
+ */
+@Slf4j
+@Component
+public class NotificationCounterBackfill implements SmartInitializingSingleton {
+    static final int BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public NotificationCounterBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            Aggregation unreadByUser = Aggregation.newAggregation(
+                    Aggregation.match(Criteria.where("read").is(false)),
+                    Aggregation.group("userId").count().as("unread"));
+            Instant now = Instant.now();
+            BulkOperations bulk = null;
+            int pending = 0;
+            int added = 0;
+            for (Document row : mongoTemplate.aggregate(unreadByUser, Notification.class, Document.class)) {
+                if (row.get("_id") == null)
+                    continue;
+                if (bulk == null)
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationCounter.class);
+                bulk.upsert(new Query(Criteria.where("id").is(row.get("_id"))), new Update()
+                        .setOnInsert("unread", ((Number) row.get("unread")).longValue())
+                        .setOnInsert("updatedAt", now));
+                if (++pending == BATCH_SIZE) {
+                    added += bulk.execute().getUpserts().size();
+                    bulk = null;
+                    pending = 0;
+                }
+            }
+            if (bulk != null)
+                added += bulk.execute().getUpserts().size();
+            if (added > 0)
+                log.info("Seeded {} notification counters", added);
+        } catch (RuntimeException ex) {
+            log.warn("Could not seed notification counters → {}", ex.getMessage());
+        }
+    }
+}
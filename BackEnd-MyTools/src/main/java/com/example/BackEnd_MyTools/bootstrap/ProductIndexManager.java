@@ -0,0 +1,95 @@
+package com.example.BackEnd_MyTools.bootstrap;
+
+import java.util.List;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.example.BackEnd_MyTools.Entitys.Product;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Prepares the Product collection for the listing queries: backfills {@code hidden=false} and {@code cityKey} on
+ * legacy documents so visibility and city are plain equalities, then ensures every index declared on
+ * {@link Product}. Auto index creation is off, and $text / $nearSphere queries fail outright without their index.
+ * The single-field 2dsphere index of earlier releases is dropped once the compound location index is in place.
+ */
+@Slf4j
+@Component
+@Order(0)
+public class ProductIndexManager implements ApplicationRunner {
+    static final String LEGACY_GEO_INDEX = "location";
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    public ProductIndexManager(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            long backfilled = mongoTemplate.updateMulti(new Query(Criteria.where("hidden").exists(false)),
+                    new Update().set("hidden", false), Product.class).getModifiedCount();
+            if (backfilled > 0)
+                log.info("Backfilled hidden=false on {} legacy products", backfilled);
+        } catch (RuntimeException ex) {
+            log.warn("Could not backfill Product.hidden → {}", ex.getMessage());
+        }
+
+        try {
+            int keyed = backfillCityKeys();
+            if (keyed > 0)
+                log.info("Backfilled cityKey on {} legacy products", keyed);
+        } catch (RuntimeException ex) {
+            log.warn("Could not backfill Product.cityKey → {}", ex.getMessage());
+        }
+
+        IndexOperations indexOps = mongoTemplate.indexOps(Product.class);
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Product.class)
+                .forEach(index -> {
+                    try {
+                        indexOps.ensureIndex(index);
+                    } catch (RuntimeException ex) {
+                        log.warn("Could not ensure Product index {} → {}", index.getIndexKeys(), ex.getMessage());
+                    }
+                });
+        try {
+            List<String> names = indexOps.getIndexInfo().stream().map(IndexInfo::getName).toList();
+            if (names.contains("location_visible_category") && names.contains(LEGACY_GEO_INDEX)) {
+                indexOps.dropIndex(LEGACY_GEO_INDEX);
+                log.info("Dropped the single-field Product 2dsphere index; location_visible_category replaces it");
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not drop the legacy Product 2dsphere index → {}", ex.getMessage());
+        }
+    }
+
+    // Computed in Java rather than with $toUpper, which is only defined for ASCII, so keys match Product.cityKey
+    private int backfillCityKeys() {
+        Query legacy = new Query(Criteria.where("city").exists(true).and("cityKey").exists(false));
+        legacy.fields().include("city");
+        List<Product> products = mongoTemplate.find(legacy, Product.class);
+        if (products.isEmpty())
+            return 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (Product product : products)
+            bulk.updateOne(new Query(Criteria.where("id").is(product.getId())),
+                    new Update().set("cityKey", Product.cityKey(product.getCity())));
+        return bulk.execute().getModifiedCount();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.BackEnd_MyTools.bootstrap;
+
+import java.time.Duration;
+
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import com.example.BackEnd_MyTools.Logging.LogEntry;
+import com.example.BackEnd_MyTools.Logging.RequestLogRollup;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates api_request_logs as a time-series collection (timeField timestamp, metaField meta) that expires
+ * documents after mytools.request-log.ttl, and gives api_log_rollups a TTL index of its own. Runs before
+ * lifecycle beans start, so the request log writer never auto-creates a plain collection.
+ * <p>
+ * The plain api_logs collection of earlier releases is never touched here: during a rolling deploy the old
+ * nodes keep writing to it. Drop it by hand once no node runs the old release.
+ */
+@Slf4j
+@Component
+public class RequestLogCollectionManager implements SmartInitializingSingleton {
+    private final MongoTemplate mongoTemplate;
+    private final Duration logTtl;
+    private final Duration rollupTtl;
+
+    public RequestLogCollectionManager(MongoTemplate mongoTemplate,
+            @Value("${mytools.request-log.ttl:P14D}") Duration logTtl,
+            @Value("${mytools.request-log.rollup.ttl:P90D}") Duration rollupTtl) {
+        this.mongoTemplate = mongoTemplate;
+        this.logTtl = logTtl;
+        this.rollupTtl = rollupTtl;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            ensureTimeSeries(mongoTemplate.getCollectionName(LogEntry.class));
+        } catch (RuntimeException ex) {
+            log.warn("Could not prepare the api_request_logs time-series collection → {}", ex.getMessage());
+        }
+        try {
+            mongoTemplate.indexOps(RequestLogRollup.class).ensureIndex(
+                    new Index().on("minute", Sort.Direction.ASC).expire(rollupTtl).named("minute_ttl"));
+            mongoTemplate.indexOps(RequestLogRollup.class).ensureIndex(new Index()
+                    .on("method", Sort.Direction.ASC).on("route", Sort.Direction.ASC)
+                    .on("minute", Sort.Direction.ASC).named("endpoint_minute"));
+        } catch (RuntimeException ex) {
+            log.warn("Could not ensure api_log_rollups indexes → {}", ex.getMessage());
+        }
+    }
+
+    private void ensureTimeSeries(String name) {
+        Document existing = collectionInfo(name);
+        if (existing != null && !"timeseries".equals(existing.getString("type"))) {
+            // Someone created it by hand; renaming or dropping it is an operator's call
+            log.warn("{} exists but is not a time-series collection; leaving it as is", name);
+            return;
+        }
+        if (existing == null) {
+            mongoTemplate.executeCommand(new Document("create", name)
+                    .append("timeseries", new Document("timeField", "timestamp")
+                            .append("metaField", "meta")
+                            .append("granularity", "seconds"))
+                    .append("expireAfterSeconds", logTtl.toSeconds()));
+            log.info("Created time-series collection {} with a TTL of {}", name, logTtl);
+            return;
+        }
+        Object current = existing.get("options", Document.class).get("expireAfterSeconds");
+        if (!(current instanceof Number seconds) || seconds.longValue() != logTtl.toSeconds()) {
+            mongoTemplate.executeCommand(new Document("collMod", name)
+                    .append("expireAfterSeconds", logTtl.toSeconds()));
+            log.info("Set the TTL of {} to {}", name, logTtl);
+        }
+    }
+
+    private Document collectionInfo(String name) {
+        return mongoTemplate.getDb().listCollections().filter(new Document("name", name)).first();
+    }
+}
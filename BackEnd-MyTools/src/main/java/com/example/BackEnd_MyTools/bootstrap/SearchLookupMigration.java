@@ -0,0 +1,68 @@
+package com.example.BackEnd_MyTools.bootstrap;
+
+import java.util.List;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.example.BackEnd_MyTools.Entitys.Lookups;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Adds the CATEGORY_SYNONYM and CITY lookups that query understanding reads to databases seeded before they
+ * existed. Each row is an upsert by _id with $setOnInsert only, so it is safe on every start and never
+ * overwrites a row an admin has edited or deactivated. Runs on ApplicationReadyEvent, after the demo seeder and
+ * before {@code QueryUnderstandingService} builds its rules.
+ */
+@Slf4j
+@Component
+public class SearchLookupMigration {
+    // Codes match the seeded CATEGORY lookups: 1 Construction Tools … 6 IT & Electronics
+    static final List<String[]> ROWS = List.of(
+            new String[] { "CATEGORY_SYNONYM", "1", "drill,tool,tools,hammer,saw,grinder" },
+            new String[] { "CATEGORY_SYNONYM", "2", "excavator,crane,loader,generator" },
+            new String[] { "CATEGORY_SYNONYM", "3", "paint,painting,sprayer,roller" },
+            new String[] { "CATEGORY_SYNONYM", "4", "level,laser,meter,measuring" },
+            new String[] { "CATEGORY_SYNONYM", "5", "truck,van,trailer" },
+            new String[] { "CATEGORY_SYNONYM", "6", "computer,laptop,camera,printer" },
+            new String[] { "CITY", "RABAT", "Rabat" },
+            new String[] { "CITY", "CASABLANCA", "Casablanca" },
+            new String[] { "CITY", "MARRAKECH", "Marrakech" },
+            new String[] { "CITY", "TANGIER", "Tangier" },
+            new String[] { "CITY", "FES", "Fes" },
+            new String[] { "CITY", "AGADIR", "Agadir" });
+
+    private final MongoTemplate mongoTemplate;
+
+    public SearchLookupMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void run() {
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Lookups.class);
+            for (String[] row : ROWS)
+                bulk.upsert(new Query(Criteria.where("id").is(row[0] + "_" + row[1])), new Update()
+                        .setOnInsert("type", row[0])
+                        .setOnInsert("code", row[1])
+                        .setOnInsert("value", row[2])
+                        .setOnInsert("isActive", true));
+            int added = bulk.execute().getUpserts().size();
+            if (added > 0)
+                log.info("Added {} search lookups", added);
+        } catch (RuntimeException ex) {
+            log.warn("Could not add search lookups → {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.BackEnd_MyTools.Kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import java.util.concurrent.CompletableFuture;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KafkaProducerServiceTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendLatencyIsRecordedPerTopicAndOutcome() {
+        KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(eq(KafkaTopics.NOTIFICATIONS), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(eq(KafkaTopics.ACTIVITY), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        KafkaProducerService producer = new KafkaProducerService(kafkaTemplate, registry);
+
+        producer.sendNotification("U001", "ORDER", "Order placed", "Thanks", "O001");
+        producer.sendActivity("U001", "VIEW", "P001", "PRODUCT");
+
+        assertThat(registry.get("mytools.kafka.send").tag("topic", KafkaTopics.NOTIFICATIONS)
+                .tag("result", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("mytools.kafka.send").tag("topic", KafkaTopics.ACTIVITY)
+                .tag("result", "failure").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.BackEnd_MyTools.Kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Two relay "nodes" sharing an embedded broker: a push on node A reaches the session connected to node B. */
+@SpringJUnitConfig(UserDestinationRelayKafkaTest.Config.class)
+@EmbeddedKafka(partitions = 1, topics = KafkaTopics.NOTIFICATIONS_RELAY)
+class UserDestinationRelayKafkaTest {
+    static final BlockingQueue<Message<?>> nodeA = new LinkedBlockingQueue<>();
+    static final BlockingQueue<Message<?>> nodeB = new LinkedBlockingQueue<>();
+
+    @Autowired
+    KafkaListenerEndpointRegistry listeners;
+    @Autowired
+    UserDestinationRelay relayA;
+
+    @Test
+    void pushIsDeliveredByTheNodeHoldingTheSession() throws Exception {
+        listeners.getListenerContainers().forEach(container -> ContainerTestUtils.waitForAssignment(container, 1));
+
+        relayA.convertAndSendToUser("U1", "/queue/notifications", Map.of("title", "Order shipped"));
+
+        Message<?> delivered = nodeB.poll(30, TimeUnit.SECONDS);
+        assertThat(delivered).isNotNull();
+        assertThat(SimpMessageHeaderAccessor.getDestination(delivered.getHeaders()))
+                .isEqualTo("/user/U1/queue/notifications");
+        assertThat(new ObjectMapper().readTree(new String((byte[]) delivered.getPayload(), StandardCharsets.UTF_8))
+                .get("title").asText()).isEqualTo("Order shipped");
+        // Node A has no session for U1 and ignores its own event
+        assertThat(nodeA.poll(2, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Configuration
+    @EnableKafka
+    static class Config {
+        @Value("${spring.embedded.kafka.brokers}")
+        String brokers;
+
+        @Bean
+        KafkaTemplate<String, Object> kafkaTemplate() {
+            return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.<String, Object>of(
+                    ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers,
+                    ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                    ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class)));
+        }
+
+        @Bean
+        ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+            ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+            factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(Map.<String, Object>of(
+                    ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers,
+                    ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                    ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class,
+                    JsonDeserializer.TRUSTED_PACKAGES, "com.example.BackEnd_MyTools.Kafka.Events")));
+            return factory;
+        }
+
+        @Bean
+        KafkaProducerService kafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate) {
+            return new KafkaProducerService(kafkaTemplate, new SimpleMeterRegistry());
+        }
+
+        @Bean
+        UserDestinationRelay relayA(ObjectProvider<KafkaProducerService> producer) {
+            return node(nodeA, false, producer);
+        }
+
+        @Bean
+        UserDestinationRelay relayB(ObjectProvider<KafkaProducerService> producer) {
+            return node(nodeB, true, producer);
+        }
+
+        private static UserDestinationRelay node(BlockingQueue<Message<?>> outbox, boolean hasSession,
+                ObjectProvider<KafkaProducerService> producer) {
+            SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> outbox.add(message));
+            template.setMessageConverter(new MappingJackson2MessageConverter());
+            SimpUserRegistry registry = mock(SimpUserRegistry.class);
+            when(registry.getUser("U1")).thenReturn(hasSession ? mock(SimpUser.class) : null);
+            StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.<String, Object>of("template", template,
+                    "registry", registry));
+            return new UserDestinationRelay(beans.getBeanProvider(SimpMessagingTemplate.class),
+                    beans.getBeanProvider(SimpUserRegistry.class), producer, true);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.mongodb.event.CommandStartedEvent;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MongoCommandTrackerTest {
+    MongoCommandTracker tracker = new MongoCommandTracker(true, 3);
+
+    @AfterEach
+    void tearDown() {
+        tracker.end();
+    }
+
+    @Test
+    void shapeBlanksValuesAndCollapsesArrays() {
+        BsonDocument a = BsonDocument.parse("{find: 'Product', filter: {_id: 'p1', tags: {$in: ['a', 'b']}}}");
+        BsonDocument b = BsonDocument.parse("{find: 'Product', filter: {_id: 'p2', tags: {$in: ['c']}}}");
+
+        assertThat(MongoCommandTracker.shapeOf("find", "Product", a))
+                .isEqualTo("find Product {_id: ?, tags: {$in: [?]}}")
+                .isEqualTo(MongoCommandTracker.shapeOf("find", "Product", b));
+    }
+
+    @Test
+    void updateUsesFirstStatementQueryAndGetMoreItsCollection() {
+        BsonDocument update = BsonDocument.parse("{update: 'Booking', updates: [{q: {_id: 'b1'}, u: {$set: {x: 1}}}]}");
+        BsonDocument getMore = BsonDocument.parse("{getMore: {$numberLong: '42'}, collection: 'Message'}");
+
+        assertThat(MongoCommandTracker.shapeOf("update", "Booking", update)).isEqualTo("update Booking {_id: ?}");
+        assertThat(MongoCommandTracker.collectionOf("getMore", getMore)).isEqualTo("Message");
+    }
+
+    @Test
+    void flagsShapesRepeatedPastThreshold() {
+        tracker.begin();
+        for (int i = 0; i < 3; i++)
+            tracker.commandStarted(started("find", "{find: 'UserProfile', filter: {userId: 'u" + i + "'}}"));
+        tracker.commandStarted(started("find", "{find: 'Booking', filter: {listingId: 'l1'}}"));
+
+        MongoProfile profile = tracker.snapshot();
+
+        assertThat(profile.getCommands()).isEqualTo(4);
+        assertThat(profile.getPerCollection()).containsEntry("UserProfile", 3).containsEntry("Booking", 1);
+        assertThat(profile.getRepeatedQueries()).singleElement()
+                .satisfies(q -> {
+                    assertThat(q.getShape()).isEqualTo("find UserProfile {userId: ?}");
+                    assertThat(q.getCount()).isEqualTo(3);
+                });
+        assertThat(profile.toHeaderValue()).contains("repeated=3x find UserProfile {userId: ?}");
+    }
+
+    @Test
+    void countsWithoutProfilingWhenDisabled() {
+        MongoCommandTracker counting = new MongoCommandTracker(false, 3);
+        counting.begin();
+        counting.commandStarted(started("find", "{find: 'Product', filter: {}}"));
+
+        assertThat(counting.commands()).isEqualTo(1);
+        assertThat(counting.snapshot()).isNull();
+        counting.end();
+    }
+
+    @Test
+    void ignoresCommandsOutsideARequest() {
+        tracker.commandStarted(started("find", "{find: 'Product', filter: {}}"));
+
+        assertThat(tracker.commands()).isZero();
+        assertThat(tracker.snapshot()).isNull();
+    }
+
+    @Test
+    void detachedStateKeepsCountingOnTheThreadItIsAttachedTo() throws Exception {
+        tracker.begin();
+        tracker.commandStarted(started("find", "{find: 'Order', filter: {}}"));
+        MongoCommandTracker.RequestCommands state = tracker.detach();
+        assertThat(tracker.commands()).isZero();
+
+        Thread worker = new Thread(() -> {
+            tracker.attach(state);
+            tracker.commandStarted(started("getMore", "{getMore: {$numberLong: '1'}, collection: 'Order'}"));
+            tracker.detach();
+        });
+        worker.start();
+        worker.join();
+
+        tracker.attach(state);
+        assertThat(tracker.commands()).isEqualTo(2);
+    }
+
+    private static CommandStartedEvent started(String name, String json) {
+        CommandStartedEvent event = mock(CommandStartedEvent.class);
+        when(event.getCommandName()).thenReturn(name);
+        when(event.getCommand()).thenReturn(BsonDocument.parse(json));
+        return event;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestLogRollupsTest {
+
+    @Test
+    void percentilesComeFromMergedBuckets() {
+        Instant minute = Instant.parse("2026-10-17T10:15:00Z");
+        String fast = String.valueOf(RequestLogRollup.bucketOf(10));
+        String slow = String.valueOf(RequestLogRollup.bucketOf(900));
+        RequestLogRollup nodeA = rollup(minute, 90, 2, Map.of(fast, 90L), 10);
+        RequestLogRollup nodeB = rollup(minute, 10, 1, Map.of(slow, 10L), 870);
+
+        RequestLogRollups.RollupStats stats = RequestLogRollups.merge(minute, List.of(nodeA, nodeB));
+
+        assertThat(stats.count()).isEqualTo(100);
+        assertThat(stats.errorRate()).isEqualTo(0.03);
+        assertThat(stats.p50Ms()).isEqualTo(10);
+        assertThat(stats.p95Ms()).isEqualTo(870);
+        assertThat(stats.maxMs()).isEqualTo(870);
+    }
+
+    @Test
+    void flushWritesOneUpsertPerEndpointMinuteInOneBulk() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(RequestLogRollup.class)))
+                .thenReturn(bulk);
+        RequestLogRollups rollups = new RequestLogRollups(mongoTemplate);
+
+        rollups.record("GET", "/products/{id}", "BusinessAPI", 12, false);
+        rollups.record("GET", "/products/{id}", "BusinessAPI", 40, true);
+        rollups.record("POST", "/api/orders", "BusinessAPI", 150, false);
+        rollups.flush();
+        rollups.flush();
+
+        verify(bulk, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(bulk, times(1)).execute();
+    }
+
+    private RequestLogRollup rollup(Instant minute, long count, long errors, Map<String, Long> buckets, long maxMs) {
+        RequestLogRollup rollup = new RequestLogRollup();
+        rollup.setMinute(minute);
+        rollup.setMethod("GET");
+        rollup.setRoute("/products/{id}");
+        rollup.setCount(count);
+        rollup.setErrors(errors);
+        rollup.setMaxMs(maxMs);
+        rollup.setBuckets(buckets);
+        return rollup;
+    }
+}
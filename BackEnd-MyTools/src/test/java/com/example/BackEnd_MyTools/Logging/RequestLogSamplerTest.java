@@ -0,0 +1,66 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import java.util.List;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestLogSamplerTest {
+    MongoTemplate mongoTemplate;
+    RequestLogSampler sampler;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.save(any(RequestLogPolicy.class))).thenAnswer(i -> i.getArgument(0));
+        sampler = new RequestLogSampler(mongoTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void defaultsDropProbesButKeepTheirErrorsAndSlowCalls() {
+        assertThat(sampler.shouldPersist(entry("GET", "/actuator/health", "Actuator", 200, 3))).isFalse();
+        assertThat(sampler.shouldPersist(entry("GET", "/actuator/health", "Actuator", 503, 3))).isTrue();
+        assertThat(sampler.shouldPersist(entry("GET", "/actuator/health", "Actuator", 200, 6000))).isTrue();
+        assertThat(sampler.shouldPersist(entry("GET", "/api/products", "BusinessAPI", 200, 12))).isTrue();
+    }
+
+    @Test
+    void routeRuleOverridesItsCategory() {
+        RequestLogPolicy policy = RequestLogPolicy.defaults();
+        policy.setRoutes(List.of(new RequestLogPolicy.RouteRule("/api/products/**", "GET", 0.0)));
+        sampler.update(policy);
+        assertThat(sampler.shouldPersist(entry("GET", "/api/products/P001", "BusinessAPI", 200, 12))).isFalse();
+        assertThat(sampler.shouldPersist(entry("POST", "/api/products/P001", "BusinessAPI", 200, 12))).isTrue();
+    }
+
+    @Test
+    void reloadPicksUpTheStoredPolicy() {
+        RequestLogPolicy stored = RequestLogPolicy.defaults();
+        stored.getCategorySampleRates().put("BusinessAPI", 0.0);
+        when(mongoTemplate.findById(RequestLogPolicy.ID, RequestLogPolicy.class)).thenReturn(stored);
+        sampler.reload();
+        assertThat(sampler.shouldPersist(entry("GET", "/api/products", "BusinessAPI", 200, 12))).isFalse();
+    }
+
+    @Test
+    void rejectsRatesOutsideZeroToOne() {
+        RequestLogPolicy policy = RequestLogPolicy.defaults();
+        policy.getCategorySampleRates().put("Static", 1.5);
+        assertThatThrownBy(() -> sampler.update(policy)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private LogEntry entry(String method, String endpoint, String application, int status, long durationMs) {
+        LogEntry entry = new LogEntry();
+        entry.setMethod(method);
+        entry.setEndpoint(endpoint);
+        entry.setApplication(application);
+        entry.setStatusCode(status);
+        entry.setDurationMs(durationMs);
+        return entry;
+    }
+}
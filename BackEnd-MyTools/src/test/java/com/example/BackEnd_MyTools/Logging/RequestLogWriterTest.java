@@ -0,0 +1,93 @@
+package com.example.BackEnd_MyTools.Logging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class RequestLogWriterTest {
+    final List<Integer> batches = new ArrayList<>();
+    MongoTemplate mongoTemplate;
+    SimpleMeterRegistry registry;
+    RequestLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        doAnswer(invocation -> {
+            batches.add(invocation.<Collection<?>>getArgument(0).size());
+            return invocation.getArgument(0);
+        }).when(mongoTemplate).insert(anyCollection(), eq(LogEntry.class));
+        registry = new SimpleMeterRegistry();
+        writer = new RequestLogWriter(mongoTemplate, registry, 16, 5, Duration.ofMillis(50));
+    }
+
+    @Test
+    void flushWritesBufferedEntriesInBatches() {
+        for (int i = 0; i < 12; i++)
+            assertThat(writer.submit(new LogEntry())).isTrue();
+        assertThat(List.of(writer.flush(), writer.flush(), writer.flush(), writer.flush()))
+                .containsExactly(5, 5, 2, 0);
+        assertThat(batches).containsExactly(5, 5, 2);
+        assertThat(registry.counter("request.logs.written").count()).isEqualTo(12);
+        assertThat(registry.counter("request.logs.backpressure").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fullBufferDropsInsteadOfBlocking() {
+        for (int i = 0; i < 20; i++)
+            writer.submit(new LogEntry());
+        assertThat(registry.counter("request.logs.dropped").count()).isEqualTo(4);
+    }
+
+    @Test
+    void failedInsertIsCountedAndDoesNotStopTheWriter() {
+        doThrow(new IllegalStateException("down")).when(mongoTemplate).insert(anyCollection(), eq(LogEntry.class));
+        writer.submit(new LogEntry());
+        assertThat(writer.flush()).isEqualTo(1);
+        assertThat(registry.counter("request.logs.failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void stopsOnlyAfterTheWebServerHasStopped() {
+        // Lower phases stop later; the server's start/stop lifecycle sits 1024 below graceful shutdown
+        assertThat(writer.getPhase()).isLessThan(WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1024);
+    }
+
+    @Test
+    void concurrentProducersLoseNothingWhileTheWriterRuns() throws Exception {
+        writer = new RequestLogWriter(mongoTemplate, registry, 1 << 16, 500, Duration.ofMillis(5));
+        writer.start();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> producers = new ArrayList<>();
+        for (int p = 0; p < 8; p++)
+            producers.add(pool.submit(() -> {
+                for (int i = 0; i < 2_000; i++)
+                    writer.submit(new LogEntry());
+            }));
+        for (Future<?> producer : producers)
+            producer.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+        writer.stop();
+
+        // The writer thread has been joined, so its batches are visible here
+        double written = batches.stream().mapToInt(Integer::intValue).sum();
+        assertThat(written + registry.counter("request.logs.dropped").count()).isEqualTo(16_000d);
+        assertThat(registry.counter("request.logs.written").count()).isEqualTo(written);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.AnalyticsCounters;
+import com.example.BackEnd_MyTools.Entitys.Order;
+import com.example.BackEnd_MyTools.Repositories.MasteryRepo;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AnalyticsCounterServiceTest {
+    MongoTemplate mongoTemplate;
+    BulkOperations bulk;
+    AnalyticsCounterService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(AnalyticsCounters.class))).thenReturn(bulk);
+        service = new AnalyticsCounterService(mongoTemplate, mock(ProductCache.class), mock(MasteryRepo.class));
+    }
+
+    @Test
+    void sellerShareIsTheSumOfTheirOwnLines() {
+        Order order = order(Order.OrderStatus.PENDING);
+
+        assertThat(AnalyticsCounterService.sellerShares(order)).containsExactly(
+                Map.entry("S1", 30.0), Map.entry("S2", 5.0));
+    }
+
+    @Test
+    void placingAnOrderIncrementsGlobalAndEachSellerInOneBulk() {
+        service.orderPlaced(order(Order.OrderStatus.PENDING));
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(3)).upsert(queries.capture(), updates.capture());
+        verify(bulk).execute();
+        assertThat(queries.getAllValues()).extracting(q -> q.getQueryObject().get("id"))
+                .containsExactly("global", "seller:S1", "seller:S2");
+        Document sellerInc = (Document) updates.getAllValues().get(1).getUpdateObject().get("$inc");
+        assertThat(sellerInc).containsEntry("orders", 1).containsEntry("revenueByStatus.PENDING", 30.0);
+    }
+
+    @Test
+    void statusChangeMovesCountAndRevenueBetweenStatuses() {
+        service.orderStatusChanged(order(Order.OrderStatus.CANCELLED), Order.OrderStatus.PENDING);
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(3)).upsert(any(Query.class), updates.capture());
+        Document globalInc = (Document) updates.getAllValues().get(0).getUpdateObject().get("$inc");
+        assertThat(globalInc)
+                .containsEntry("ordersByStatus.PENDING", -1)
+                .containsEntry("ordersByStatus.CANCELLED", 1)
+                .containsEntry("revenueByStatus.PENDING", -35.0)
+                .containsEntry("revenueByStatus.CANCELLED", 35.0);
+    }
+
+    @Test
+    void unchangedStatusWritesNothing() {
+        service.orderStatusChanged(order(Order.OrderStatus.SHIPPED), Order.OrderStatus.SHIPPED);
+
+        verifyNoInteractions(bulk);
+    }
+
+    @Test
+    void rebuildReplacesEachScopeInPlaceInsteadOfClearingTheCollection() {
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class)))
+                .thenAnswer(i -> Stream.of(order(Order.OrderStatus.PENDING)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), any(Class.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        assertThat(service.rebuild().getOrders()).isEqualTo(1);
+
+        ArgumentCaptor<Object> replacements = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<FindAndReplaceOptions> options = ArgumentCaptor.forClass(FindAndReplaceOptions.class);
+        verify(bulk, times(3)).replaceOne(any(Query.class), replacements.capture(), options.capture());
+        verify(bulk).execute();
+        assertThat(replacements.getAllValues()).extracting(c -> ((AnalyticsCounters) c).getId())
+                .containsExactlyInAnyOrder("global", "seller:S1", "seller:S2");
+        assertThat(options.getAllValues()).allMatch(FindAndReplaceOptions::isUpsert);
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(AnalyticsCounters.class));
+        assertThat(removed.getValue().getQueryObject()).containsKeys("id", "updatedAt");
+        verify(mongoTemplate, never()).insert(anyCollection(), eq(AnalyticsCounters.class));
+    }
+
+    @Test
+    void revenueExcludesCancelledOrders() {
+        AnalyticsCounters counters = new AnalyticsCounters();
+        counters.setRevenueByStatus(Map.of("PENDING", 20.0, "DELIVERED", 15.0, "CANCELLED", 100.0));
+
+        assertThat(counters.revenue()).isEqualTo(35.0);
+    }
+
+    private static Order order(Order.OrderStatus status) {
+        Order order = new Order();
+        order.setStatus(status);
+        order.setTotalAmount(35);
+        order.setItems(List.of(
+                Order.OrderItem.builder().ownerId("S1").lineTotal(10).build(),
+                Order.OrderItem.builder().ownerId("S2").lineTotal(5).build(),
+                Order.OrderItem.builder().ownerId("S1").lineTotal(20).build()));
+        return order;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.Order;
+import com.example.BackEnd_MyTools.testsupport.JwtTestFactory;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnalyticsServiceTest {
+    MongoTemplate mongoTemplate;
+    AnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new AnalyticsService(mongoTemplate, mock(AnalyticsCounterService.class));
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenAnswer(i -> Stream.of(order()));
+    }
+
+    @Test
+    void sellerItemExportKeepsOnlyTheirLinesAndQuotesText() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.ordersCsv(JwtTestFactory.user("S1"), null, null, null, true, false).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).startsWith("O1,INV-1,PENDING,2025-03-01T10:00,P1,\"Drill, cordless\",S1,");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(Order.class));
+        assertThat(query.getValue().getQueryObject()).containsEntry("items.ownerId", "S1");
+    }
+
+    @Test
+    void gzipExportDecompressesToTheSameCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.ordersCsv(JwtTestFactory.admin("A1"), null, null, null, false, true).writeTo(out);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                    .isEqualTo("id,invoice,status,total,createdAt\nO1,INV-1,PENDING,25.0,2025-03-01T10:00\n");
+        }
+    }
+
+    @Test
+    void exportQueryAppliesDateRangeAndStatuses() {
+        Document filter = AnalyticsService.exportQuery(null, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31),
+                List.of(Order.OrderStatus.DELIVERED)).getQueryObject();
+
+        assertThat(filter.get("createdAt", Document.class))
+                .containsEntry("$gte", LocalDateTime.of(2025, 1, 1, 0, 0))
+                .containsEntry("$lt", LocalDateTime.of(2025, 2, 1, 0, 0));
+        assertThat(filter.get("status", Document.class)).containsKey("$in");
+        assertThat(filter).doesNotContainKey("items.ownerId");
+    }
+
+    @Test
+    void rejectsInvertedRangeBeforeStreaming() {
+        assertThatThrownBy(() -> service.ordersCsv(JwtTestFactory.admin("A1"), LocalDate.of(2025, 2, 1),
+                LocalDate.of(2025, 1, 1), null, false, false)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cellNeutralisesFormulas() {
+        assertThat(AnalyticsService.cell("=SUM(A1)")).isEqualTo("'=SUM(A1)");
+        assertThat(AnalyticsService.cell("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+        assertThat(AnalyticsService.cell(null)).isEmpty();
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.setId("O1");
+        order.setInvoiceNumber("INV-1");
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setTotalAmount(25);
+        order.setCreatedAt(LocalDateTime.of(2025, 3, 1, 10, 0));
+        order.setItems(List.of(
+                Order.OrderItem.builder().productId("P1").productName("Drill, cordless").ownerId("S1")
+                        .quantity(1).price(15).lineTotal(15).build(),
+                Order.OrderItem.builder().productId("P2").productName("Saw").ownerId("S2")
+                        .quantity(1).price(10).lineTotal(10).build()));
+        return order;
+    }
+}
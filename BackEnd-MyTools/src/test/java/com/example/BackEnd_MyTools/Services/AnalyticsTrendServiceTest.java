@@ -0,0 +1,115 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Services.AnalyticsTrendService.Interval;
+import com.example.BackEnd_MyTools.Services.AnalyticsTrendService.TrendFilter;
+import com.example.BackEnd_MyTools.Services.AnalyticsTrendService.TrendPoint;
+import com.example.BackEnd_MyTools.testsupport.JwtTestFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AnalyticsTrendServiceTest {
+    AnalyticsTrendService service;
+    LocalDate today = LocalDate.now(ZoneId.of("UTC"));
+
+    @BeforeEach
+    void setUp() {
+        service = spy(new AnalyticsTrendService(mock(MongoTemplate.class), new SimpleMeterRegistry(), "UTC",
+                Duration.ofHours(1), 1000));
+        doReturn(Map.of()).when(service).compute(any(), any(), any(), any());
+    }
+
+    @Test
+    void bucketsStartOnMondayAndFirstOfMonth() {
+        LocalDate thursday = LocalDate.of(2025, 5, 15);
+
+        assertThat(AnalyticsTrendService.bucketStart(Interval.WEEK, thursday)).isEqualTo(LocalDate.of(2025, 5, 12));
+        assertThat(AnalyticsTrendService.bucketStart(Interval.MONTH, thursday)).isEqualTo(LocalDate.of(2025, 5, 1));
+        assertThat(AnalyticsTrendService.next(Interval.MONTH, LocalDate.of(2025, 1, 1))).isEqualTo(LocalDate.of(2025, 2, 1));
+    }
+
+    @Test
+    void closedBucketsAreServedFromCacheAndOnlyTheCurrentOneIsRecomputed() {
+        TrendFilter filter = new TrendFilter("S1", null, null);
+        LocalDate from = today.minusDays(6);
+
+        List<TrendPoint> first = service.trend(Interval.DAY, from, today, filter);
+        service.trend(Interval.DAY, from, today, filter);
+
+        assertThat(first).hasSize(7).extracting(TrendPoint::bucket).startsWith(from).endsWith(today);
+        verify(service).compute(eq(Interval.DAY), eq(from), eq(today.plusDays(1)), eq(filter));
+        verify(service).compute(eq(Interval.DAY), eq(today), eq(today.plusDays(1)), eq(filter));
+    }
+
+    @Test
+    void cacheIsScopedPerFilter() {
+        LocalDate from = today.minusDays(3);
+        LocalDate to = today.minusDays(1);
+
+        service.trend(Interval.DAY, from, to, new TrendFilter("S1", null, null));
+        service.trend(Interval.DAY, from, to, new TrendFilter("S2", null, null));
+        service.trend(Interval.DAY, from, to, new TrendFilter("S1", null, null));
+
+        verify(service, times(2)).compute(eq(Interval.DAY), eq(from), eq(today), any());
+    }
+
+    @Test
+    void cityIsNormalizedLikeTheProductFilter() {
+        LocalDate from = today.minusDays(3);
+        LocalDate to = today.minusDays(1);
+
+        service.trend(Interval.DAY, from, to, new TrendFilter(null, null, "rabat"));
+        service.trend(Interval.DAY, from, to, new TrendFilter(null, null, " RABAT "));
+
+        assertThat(new TrendFilter(null, null, "Fès").city()).isEqualTo("FES");
+        verify(service, times(1)).compute(eq(Interval.DAY), eq(from), eq(today), any());
+    }
+
+    @Test
+    void sellersCannotReadAnotherSellersTrend() {
+        assertThatThrownBy(() -> service.trend(JwtTestFactory.user("S1"), "day", null, null, "S2", null, null))
+                .isInstanceOf(SecurityException.class);
+        assertThatThrownBy(() -> service.trend(JwtTestFactory.user("S1"), "hour", null, null, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void orderPipelineFiltersLinesAfterUnwind() {
+        List<Document> pipeline = service.orderPipeline(Interval.WEEK, new Date(0), new Date(1), "S1",
+                new Document("categoryId", 2));
+
+        assertThat(pipeline).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$unwind", "$match", "$lookup", "$match", "$group", "$group");
+        Document bucket = pipeline.get(5).get("$group", Document.class).get("_id", Document.class);
+        assertThat(bucket.get("bucket", Document.class).get("$dateTrunc", Document.class))
+                .containsEntry("unit", "week").containsEntry("startOfWeek", "monday").containsEntry("timezone", "UTC");
+    }
+
+    @Test
+    void categoryAndCityJoinProductsInsteadOfListingTheirIds() {
+        List<Document> pipeline = service.bookingPipeline(Interval.DAY, new Date(0), new Date(1), null,
+                new Document("cityKey", "RABAT"));
+
+        Document lookup = pipeline.get(1).get("$lookup", Document.class);
+        assertThat(lookup.getList("pipeline", Document.class)).extracting(stage -> stage.get("$match"))
+                .contains(new Document("cityKey", "RABAT"));
+        assertThat(pipeline.get(0).get("$match", Document.class)).doesNotContainKey("ownerId")
+                .containsEntry("productId", new Document("$ne", null));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.Booking;
+import com.example.BackEnd_MyTools.Entitys.ResourceAvailability;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.mockito.ArgumentCaptor;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AvailabilityIndexTest {
+    final LocalDate start = LocalDate.of(2026, 12, 30);
+    MongoTemplate mongoTemplate;
+    AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(ResourceAvailability.class))).thenReturn(List.of());
+        when(mongoTemplate.find(any(Query.class), eq(Booking.class))).thenReturn(List.of(
+                Booking.builder().startDate(start).endDate(start.plusDays(3)).build(),
+                Booking.builder().startDate(start.plusDays(5)).endDate(start.plusDays(6)).build()));
+        index = new AvailabilityIndex(mongoTemplate, new SimpleMeterRegistry(), Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void buildsFromActiveBookingsOnceAndAnswersFromMemory() {
+        assertThat(index.isBooked(Booking.ResourceType.PRODUCT, "P001", start.plusDays(2), start.plusDays(4)))
+                .isTrue();
+        assertThat(index.isBooked(Booking.ResourceType.PRODUCT, "P001", start.plusDays(3), start.plusDays(5)))
+                .isFalse();
+        assertThat(index.isBooked(Booking.ResourceType.PRODUCT, "P001", start.minusDays(2), start)).isFalse();
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Booking.class));
+    }
+
+    @Test
+    void unavailableDaysIncludeCheckoutDayAcrossYears() {
+        assertThat(index.unavailableDays(Booking.ResourceType.PRODUCT, "P001")).containsExactly(
+                start, start.plusDays(1), start.plusDays(2), start.plusDays(3), start.plusDays(5),
+                start.plusDays(6));
+    }
+
+    @Test
+    void markAndFreeUpdateMemoryAndPersistPerYear() {
+        index.markBooked(Booking.ResourceType.MASTERY, "M001", start.plusDays(10), start.plusDays(12));
+        assertThat(index.isBooked(Booking.ResourceType.MASTERY, "M001", start.plusDays(11), start.plusDays(12)))
+                .isTrue();
+        index.markFree(Booking.ResourceType.MASTERY, "M001", List.of(start.plusDays(11)));
+        assertThat(index.isBooked(Booking.ResourceType.MASTERY, "M001", start.plusDays(11), start.plusDays(12)))
+                .isFalse();
+        assertThat(index.isBooked(Booking.ResourceType.MASTERY, "M001", start.plusDays(10), start.plusDays(11)))
+                .isTrue();
+        // Initial build: one upsert per year (two), then one per mark and free
+        verify(mongoTemplate, times(4)).upsert(any(Query.class), any(Update.class), eq(ResourceAvailability.class));
+    }
+
+    @Test
+    void loadsPersistedBitmapWithoutReadingBookings() {
+        ResourceAvailability stored = new ResourceAvailability();
+        stored.setYear(2027);
+        stored.setW0(0b110L);
+        when(mongoTemplate.find(any(Query.class), eq(ResourceAvailability.class))).thenReturn(List.of(stored));
+        assertThat(index.unavailableDays(Booking.ResourceType.PRODUCT, "P002")).containsExactly(
+                LocalDate.of(2027, 1, 2), LocalDate.of(2027, 1, 3), LocalDate.of(2027, 1, 4));
+        verify(mongoTemplate, times(0)).find(any(Query.class), eq(Booking.class));
+    }
+
+    @Test
+    void rebuildOnlyInsertsSoItCannotUndoAnotherNodesChange() {
+        index.isBooked(Booking.ResourceType.PRODUCT, "P001", start, start.plusDays(1));
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).upsert(any(Query.class), updates.capture(), eq(ResourceAvailability.class));
+        for (Update update : updates.getAllValues())
+            assertThat(update.getUpdateObject().keySet()).containsExactly("$setOnInsert");
+        // 2027-01-01 and 2027-01-04 are bits 0 and 3
+        assertThat(updates.getAllValues())
+                .extracting(update -> update.getUpdateObject().get("$setOnInsert", Document.class))
+                .anySatisfy(doc -> assertThat(doc).containsEntry("year", 2027).containsEntry("w0", 0b1001L));
+    }
+
+    @Test
+    void leastRecentlyUsedResourceIsDroppedAndReloaded() {
+        index = new AvailabilityIndex(mongoTemplate, new SimpleMeterRegistry(), Duration.ofMinutes(5), 1);
+        index.isBooked(Booking.ResourceType.PRODUCT, "P001", start, start.plusDays(1));
+        index.isBooked(Booking.ResourceType.PRODUCT, "P002", start, start.plusDays(1));
+        index.isBooked(Booking.ResourceType.PRODUCT, "P001", start, start.plusDays(1));
+
+        verify(mongoTemplate, times(3)).find(any(Query.class), eq(Booking.class));
+    }
+}
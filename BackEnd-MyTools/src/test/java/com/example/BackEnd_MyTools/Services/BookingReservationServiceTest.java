@@ -0,0 +1,132 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.Booking;
+import com.example.BackEnd_MyTools.Entitys.BookingReservation;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class BookingReservationServiceTest {
+    // Stands in for the collection: putIfAbsent has the same per-key atomicity as the unique _id index
+    final Map<String, BookingReservation> collection = new ConcurrentHashMap<>();
+    AvailabilityIndex index;
+    BookingReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        doAnswer(invocation -> {
+            Collection<BookingReservation> batch = invocation.getArgument(0);
+            // Ordered insertMany: documents before the first duplicate stay inserted
+            for (BookingReservation day : batch)
+                if (collection.putIfAbsent(day.getId(), day) != null)
+                    throw new DuplicateKeyException("E11000 duplicate key " + day.getId());
+            return batch;
+        }).when(mongoTemplate).insert(anyCollection(), eq(BookingReservation.class));
+        doAnswer(invocation -> {
+            Document filter = invocation.<Query>getArgument(0).getQueryObject();
+            List<?> ids = filter.get("id", Document.class).getList("$in", Object.class);
+            String holdId = filter.getString("holdId");
+            ids.forEach(id -> collection.computeIfPresent((String) id,
+                    (key, day) -> holdId.equals(day.getHoldId()) ? null : day));
+            return null;
+        }).when(mongoTemplate).remove(any(Query.class), eq(BookingReservation.class));
+        doAnswer(invocation -> {
+            Document filter = invocation.<Query>getArgument(0).getQueryObject();
+            return filter.get("id", Document.class).getList("$in", Object.class).stream()
+                    .map(collection::get).filter(Objects::nonNull).toList();
+        }).when(mongoTemplate).find(any(Query.class), eq(BookingReservation.class));
+        index = mock(AvailabilityIndex.class);
+        service = new BookingReservationService(mongoTemplate, index);
+    }
+
+    @Test
+    void overlappingHoldIsRejectedAndLeavesNoPartialDays() {
+        LocalDate start = LocalDate.now().plusDays(10);
+        String first = service.reserve(Booking.ResourceType.PRODUCT, "P001", start, start.plusDays(3));
+        assertThatThrownBy(() -> service.reserve(Booking.ResourceType.PRODUCT, "P001", start.minusDays(2),
+                start.plusDays(1))).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("already booked");
+        assertThat(collection).hasSize(3);
+        assertThat(collection.values()).allMatch(day -> first.equals(day.getHoldId()));
+        verify(index).markBooked(Booking.ResourceType.PRODUCT, "P001", start, start.plusDays(3));
+        verify(index, never()).markFree(any(), any(), anyCollection());
+    }
+
+    @Test
+    void releaseOnlyFreesDaysOfTheGivenHold() {
+        LocalDate start = LocalDate.now().plusDays(10);
+        String hold = service.reserve(Booking.ResourceType.PRODUCT, "P001", start, start.plusDays(2));
+        service.release("someone-else", List.of(new BookingReservationService.Span(Booking.ResourceType.PRODUCT,
+                "P001", start, start.plusDays(2))));
+        assertThat(collection).hasSize(2);
+        verify(index).markFree(Booking.ResourceType.PRODUCT, "P001", List.of());
+        service.release(hold, List.of(new BookingReservationService.Span(Booking.ResourceType.PRODUCT, "P001",
+                start, start.plusDays(2))));
+        assertThat(collection).isEmpty();
+        verify(index).markFree(Booking.ResourceType.PRODUCT, "P001", List.of(start, start.plusDays(1)));
+    }
+
+    @Test
+    void parallelCheckoutsOfTheSameToolNeverOverlap() throws Exception {
+        LocalDate base = LocalDate.now().plusDays(30);
+        int attempts = 400;
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<LocalDate[]>> results = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            results.add(pool.submit(() -> {
+                LocalDate start = base.plusDays(ThreadLocalRandom.current().nextInt(60));
+                LocalDate end = start.plusDays(1 + ThreadLocalRandom.current().nextInt(5));
+                go.await();
+                try {
+                    service.reserve(Booking.ResourceType.PRODUCT, "P001", start, end);
+                    return new LocalDate[] { start, end };
+                } catch (IllegalArgumentException conflict) {
+                    return null;
+                }
+            }));
+        }
+        go.countDown();
+        List<LocalDate[]> accepted = new ArrayList<>();
+        for (Future<LocalDate[]> result : results) {
+            LocalDate[] window = result.get(30, TimeUnit.SECONDS);
+            if (window != null)
+                accepted.add(window);
+        }
+        pool.shutdown();
+
+        assertThat(accepted).isNotEmpty();
+        for (int i = 0; i < accepted.size(); i++)
+            for (int j = i + 1; j < accepted.size(); j++)
+                assertThat(accepted.get(i)[0].isBefore(accepted.get(j)[1])
+                        && accepted.get(j)[0].isBefore(accepted.get(i)[1]))
+                        .as("accepted windows %s and %s overlap", List.of(accepted.get(i)), List.of(accepted.get(j)))
+                        .isFalse();
+        long heldDays = accepted.stream().mapToLong(w -> w[0].until(w[1]).getDays()).sum();
+        assertThat(collection).hasSize((int) heldDays);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.BackEnd_MyTools.Services;
 
 import com.example.BackEnd_MyTools.DTO.CreateBookingRequest;
 import com.example.BackEnd_MyTools.Entitys.Booking;
+import com.example.BackEnd_MyTools.Entitys.Cart;
 import com.example.BackEnd_MyTools.Entitys.Product;
 import com.example.BackEnd_MyTools.Repositories.BookingRepo;
 import com.example.BackEnd_MyTools.Repositories.ProductRepo;
@@ -13,14 +14,22 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +41,14 @@ class BookingServiceTest {
     ProductRepo productRepo;
     @Mock
     NotificationService notificationService;
+    @Mock
+    MongoTemplate mongoTemplate;
+    @Mock
+    BookingReservationService reservationService;
+    @Mock
+    AvailabilityIndex availabilityIndex;
+    @Mock
+    DisplayNameCache displayNames;
     @InjectMocks
     BookingService bookingService;
 
@@ -44,13 +61,28 @@ class BookingServiceTest {
         r.setStartDate(LocalDate.now().plusDays(2));
         r.setEndDate(LocalDate.now().plusDays(5));
         when(productRepo.findById("P001")).thenReturn(Optional.of(p));
-        when(bookingRepo.findConflictingBookings("P001", r.getStartDate(), r.getEndDate())).thenReturn(List.of());
+        when(availabilityIndex.isBooked(Booking.ResourceType.PRODUCT, "P001", r.getStartDate(), r.getEndDate()))
+                .thenReturn(false);
         when(bookingRepo.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
         Booking b = bookingService.createDirectBooking(JwtTestFactory.user("CUSTOMER"), r);
         assertThat(b.getDurationDays()).isEqualTo(3);
         assertThat(b.getTotalPrice()).isEqualTo(1200);
     }
 
+    @Test
+    void createDirectBookingRejectsAProductWithdrawnMeanwhile() {
+        Product p = product("P001", "Hammer drill", "OWNER", 200);
+        p.setIsavailable(false);
+        CreateBookingRequest r = new CreateBookingRequest();
+        r.setProductId("P001");
+        r.setStartDate(LocalDate.now().plusDays(2));
+        r.setEndDate(LocalDate.now().plusDays(5));
+        when(productRepo.findById("P001")).thenReturn(Optional.of(p));
+        assertThatThrownBy(() -> bookingService.createDirectBooking(JwtTestFactory.user("CUSTOMER"), r))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("not available");
+        verify(reservationService, never()).reserve(any(), any(), any(), any());
+    }
+
     @Test
     void createDirectBookingRejectsConflictingDates() {
         Product p = product("P001", "Hammer drill", "OWNER", 200);
@@ -59,10 +91,8 @@ class BookingServiceTest {
         r.setStartDate(LocalDate.now().plusDays(2));
         r.setEndDate(LocalDate.now().plusDays(5));
         when(productRepo.findById("P001")).thenReturn(Optional.of(p));
-        doReturn(List.of(Booking.builder().id("B001").build()))
-                .when(bookingRepo).findConflictingBookings(eq("P001"), eq(r.getStartDate()), eq(r.getEndDate()));
-        doReturn(List.of())
-                .when(bookingRepo).findConflictingResourceBookings(any(), anyString(), eq(r.getStartDate()), eq(r.getEndDate()));
+        when(availabilityIndex.isBooked(Booking.ResourceType.PRODUCT, "P001", r.getStartDate(), r.getEndDate()))
+                .thenReturn(true);
         assertThatThrownBy(() -> bookingService.createDirectBooking(JwtTestFactory.user("CUSTOMER"), r))
                 .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("already booked");
     }
@@ -78,12 +108,131 @@ class BookingServiceTest {
         assertThat(result).extracting(Booking::getId).containsExactly("B001", "B002");
     }
 
+    @Test
+    void listingsResolveMissingNamesInOneBatch() {
+        Booking first = Booking.builder().id("B001").userId("U001").ownerId("OWNER").build();
+        Booking second = Booking.builder().id("B002").userId("U002").ownerId("OWNER").ownerName("Kept").build();
+        when(bookingRepo.findByOwnerIdOrderByCreatedAtDesc("OWNER")).thenReturn(List.of(first, second));
+        when(displayNames.resolveAll(any())).thenReturn(Map.of("U001", "Sara A", "U002", "Omar B", "OWNER", "Tools Co"));
+
+        List<Booking> result = bookingService.getOwnerBookings("OWNER");
+
+        assertThat(result).extracting(Booking::getUserName).containsExactly("Sara A", "Omar B");
+        assertThat(result).extracting(Booking::getOwnerName).containsExactly("Tools Co", "Kept");
+        verify(displayNames, times(1)).resolveAll(any());
+    }
+
+    @Test
+    void findConflictingProductsChecksAllWindowsInOneQuery() {
+        LocalDate start = LocalDate.now().plusDays(2);
+        Cart.CartItem drill = rental("P001", start, start.plusDays(3));
+        Cart.CartItem saw = rental("P002", start, start.plusDays(3));
+        Booking booked = Booking.builder().productId("P002").startDate(start.plusDays(1)).endDate(start.plusDays(2))
+                .build();
+        when(mongoTemplate.find(any(Query.class), eq(Booking.class))).thenReturn(List.of(booked));
+        assertThat(bookingService.findConflictingProducts(List.of(drill, saw))).containsExactly("P002");
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Booking.class));
+    }
+
+    @Test
+    void findConflictingProductsRejectsOverlapWithinTheSameCart() {
+        LocalDate start = LocalDate.now().plusDays(2);
+        when(mongoTemplate.find(any(Query.class), eq(Booking.class))).thenReturn(List.of());
+        assertThat(bookingService.findConflictingProducts(List.of(rental("P001", start, start.plusDays(3)),
+                rental("P001", start.plusDays(2), start.plusDays(4))))).containsExactly("P001");
+    }
+
+    @Test
+    void createFromOrderItemsWritesOneBulkInsert() {
+        LocalDate start = LocalDate.now().plusDays(2);
+        Product p = product("P001", "Hammer drill", "OWNER", 200);
+        when(bookingRepo.insert(anyList())).thenAnswer(i -> i.getArgument(0));
+        List<Booking> saved = bookingService.createFromOrderItems(Map.of("P001", p), "CUSTOMER", "O001",
+                List.of(rental("P001", start, start.plusDays(2)), rental("P001", start.plusDays(5), start.plusDays(6))),
+                Booking.BookingStatus.PENDING, "H001");
+        assertThat(saved).hasSize(2).allMatch(b -> "O001".equals(b.getOrderId()) && "H001".equals(b.getReservationId()));
+        verify(bookingRepo, times(1)).insert(anyList());
+    }
+
+    @Test
+    void cancellingAnActiveBookingReleasesItsDays() {
+        Booking booking = Booking.builder().id("B001").resourceType(Booking.ResourceType.PRODUCT).resourceId("P001")
+                .ownerId("OWNER").userId("CUSTOMER").status(Booking.BookingStatus.PENDING).reservationId("H001")
+                .startDate(LocalDate.now().plusDays(2)).endDate(LocalDate.now().plusDays(4)).build();
+        when(bookingRepo.findById("B001")).thenReturn(Optional.of(booking));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Booking.class))).thenReturn(booking);
+        bookingService.updateStatus("B001", Booking.BookingStatus.CANCELLED, JwtTestFactory.user("CUSTOMER"));
+        verify(reservationService).release(booking);
+    }
+
+    @Test
+    void completingAnActiveBookingReleasesItsDays() {
+        Booking booking = Booking.builder().id("B001").resourceType(Booking.ResourceType.PRODUCT).resourceId("P001")
+                .ownerId("OWNER").userId("CUSTOMER").status(Booking.BookingStatus.CONFIRMED).reservationId("H001")
+                .startDate(LocalDate.now().plusDays(2)).endDate(LocalDate.now().plusDays(4)).build();
+        when(bookingRepo.findById("B001")).thenReturn(Optional.of(booking));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Booking.class))).thenReturn(booking);
+        bookingService.updateStatus("B001", Booking.BookingStatus.COMPLETED, JwtTestFactory.user("OWNER"));
+        verify(reservationService).release(booking);
+    }
+
+    @Test
+    void cancellingACompletedBookingReleasesItsHold() {
+        Booking booking = Booking.builder().id("B001").resourceType(Booking.ResourceType.PRODUCT).resourceId("P001")
+                .ownerId("OWNER").userId("CUSTOMER").status(Booking.BookingStatus.COMPLETED).reservationId("H001")
+                .startDate(LocalDate.now().plusDays(2)).endDate(LocalDate.now().plusDays(4)).build();
+        when(bookingRepo.findById("B001")).thenReturn(Optional.of(booking));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Booking.class))).thenReturn(booking);
+        bookingService.updateStatus("B001", Booking.BookingStatus.CANCELLED, JwtTestFactory.user("OWNER"));
+        verify(reservationService).release(booking);
+    }
+
+    @Test
+    void staleStatusChangeIsRejectedAndFreesTheNewHold() {
+        Booking booking = Booking.builder().id("B001").resourceType(Booking.ResourceType.PRODUCT).resourceId("P001")
+                .ownerId("OWNER").userId("CUSTOMER").status(Booking.BookingStatus.CANCELLED).reservationId("H001")
+                .startDate(LocalDate.now().plusDays(2)).endDate(LocalDate.now().plusDays(4)).build();
+        when(bookingRepo.findById("B001")).thenReturn(Optional.of(booking));
+        when(reservationService.reserve(Booking.ResourceType.PRODUCT, "P001", booking.getStartDate(),
+                booking.getEndDate())).thenReturn("H002");
+        // Someone else changed the status after it was read
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Booking.class))).thenReturn(null);
+        assertThatThrownBy(() -> bookingService.updateStatus("B001", Booking.BookingStatus.CONFIRMED,
+                JwtTestFactory.user("OWNER"))).isInstanceOf(IllegalArgumentException.class);
+        verify(reservationService).release(eq("H002"), anyList());
+    }
+
+    @Test
+    void failedReactivationWriteFreesTheNewHold() {
+        Booking booking = Booking.builder().id("B001").resourceType(Booking.ResourceType.PRODUCT).resourceId("P001")
+                .ownerId("OWNER").userId("CUSTOMER").status(Booking.BookingStatus.CANCELLED).reservationId("H001")
+                .startDate(LocalDate.now().plusDays(2)).endDate(LocalDate.now().plusDays(4)).build();
+        when(bookingRepo.findById("B001")).thenReturn(Optional.of(booking));
+        when(reservationService.reserve(Booking.ResourceType.PRODUCT, "P001", booking.getStartDate(),
+                booking.getEndDate())).thenReturn("H002");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Booking.class))).thenThrow(new DataAccessResourceFailureException("connection reset"));
+        assertThatThrownBy(() -> bookingService.updateStatus("B001", Booking.BookingStatus.CONFIRMED,
+                JwtTestFactory.user("OWNER"))).isInstanceOf(DataAccessResourceFailureException.class);
+        verify(reservationService).release(eq("H002"), anyList());
+    }
+
+    private Cart.CartItem rental(String productId, LocalDate start, LocalDate end) {
+        return Cart.CartItem.builder().productId(productId).listingType(Cart.CartItem.ListingType.RENT)
+                .startDate(start).endDate(end).quantity(1).build();
+    }
+
     private Product product(String id, String name, String owner, int price) {
         Product p = new Product();
         p.setId(id);
         p.setName(name);
         p.setOwnerId(owner);
         p.setPrice(price);
+        p.setIsavailable(true);
         return p;
     }
 }
@@ -0,0 +1,53 @@
+package com.example.BackEnd_MyTools.Services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.assertj.core.api.Assertions.*;
+
+class BoundedCacheTest {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void evictsLeastRecentlyUsedPastTheBoundAndCachesNulls() {
+        BoundedCache<String, String> cache = BoundedCache.ofEntries("test", registry, Duration.ofMinutes(1), 2);
+        Map<String, String> loaded = new HashMap<>();
+        loaded.put("a", "A");
+        loaded.put("b", null);
+        cache.putAll(loaded, cache.generation());
+        cache.getIfPresent("a");
+        cache.put("c", "C", cache.generation());
+
+        assertThat(cache.getAllPresent(List.of("a", "b", "c"))).containsOnlyKeys("a", "c");
+        assertThat(cache.getAllPresent(Arrays.asList("b", null))).isEmpty();
+        cache.put("b", null, cache.generation());
+        assertThat(cache.getAllPresent(List.of("b"))).containsEntry("b", null);
+        assertThat(registry.get("cache.evictions").tag("cache", "test").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void loadThatRacedWithAnInvalidationIsNotCached() {
+        BoundedCache<String, String> cache = BoundedCache.ofEntries("test", registry, Duration.ofMinutes(1), 10);
+        long loadGeneration = cache.generation();
+        cache.invalidate("a");
+        cache.put("a", "stale", loadGeneration);
+
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void byteBoundedCacheSkipsValuesHeavierThanTheWholeBudget() {
+        BoundedCache<String, String> cache = BoundedCache.ofBytes("test", registry, Duration.ofMinutes(1), 10,
+                String::length);
+        cache.put("small", "12345", cache.generation());
+        cache.put("huge", "12345678901", cache.generation());
+
+        assertThat(cache.getAllPresent(List.of("small", "huge"))).containsOnlyKeys("small");
+        assertThat(cache.weight()).isEqualTo(5);
+    }
+}
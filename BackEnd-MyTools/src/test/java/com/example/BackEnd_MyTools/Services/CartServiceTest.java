@@ -5,7 +5,6 @@ import com.example.BackEnd_MyTools.Entitys.Cart;
 import com.example.BackEnd_MyTools.Entitys.Product;
 import com.example.BackEnd_MyTools.Kafka.KafkaProducerService;
 import com.example.BackEnd_MyTools.Repositories.CartRepo;
-import com.example.BackEnd_MyTools.Repositories.ProductRepo;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -22,7 +21,7 @@ class CartServiceTest {
     @Mock
     CartRepo cartRepository;
     @Mock
-    ProductRepo productRepository;
+    ProductCache productCache;
     @Mock
     KafkaProducerService kafka;
     @InjectMocks
@@ -34,7 +33,7 @@ class CartServiceTest {
         AddToCartRequest r = new AddToCartRequest();
         r.setProductId("P001");
         r.setQuantity(0);
-        when(productRepository.findById("P001")).thenReturn(Optional.of(p));
+        when(productCache.get("P001")).thenReturn(Optional.of(p));
         when(cartRepository.findByUserIdAndStatus("U001", Cart.CartStatus.ACTIVE)).thenReturn(Optional.empty());
         when(cartRepository.save(any(Cart.class))).thenAnswer(i -> i.getArgument(0));
         Cart cart = cartService.addItem("U001", r);
@@ -51,7 +50,7 @@ class CartServiceTest {
         r.setListingType(Cart.CartItem.ListingType.RENT);
         r.setStartDate(LocalDate.now().minusDays(1));
         r.setEndDate(LocalDate.now().plusDays(1));
-        when(productRepository.findById("P002")).thenReturn(Optional.of(p));
+        when(productCache.get("P002")).thenReturn(Optional.of(p));
         assertThatThrownBy(() -> cartService.addItem("U001", r)).isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("past");
     }
@@ -0,0 +1,56 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.UserProfile;
+import com.example.BackEnd_MyTools.Repositories.UserProfileRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DisplayNameCacheTest {
+    UserProfileRepo userProfileRepo;
+    DisplayNameCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userProfileRepo = mock(UserProfileRepo.class);
+        when(userProfileRepo.findNamesByUserIdIn(anyCollection()))
+                .thenReturn(List.of(profile("U001", "Sara", "Alami", null), profile("U002", null, null, "omar")));
+        cache = new DisplayNameCache(userProfileRepo, new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void resolvesAllMissesWithOneQueryAndCachesUnknownUsers() {
+        Map<String, String> names = cache.resolveAll(List.of("U001", "U002", "U003", "U001"));
+        assertThat(names).containsEntry("U001", "Sara Alami").containsEntry("U002", "omar").containsEntry("U003", null);
+
+        assertThat(cache.resolve("U003")).isNull();
+        assertThat(cache.resolve("U001")).isEqualTo("Sara Alami");
+        verify(userProfileRepo, times(1)).findNamesByUserIdIn(anyCollection());
+    }
+
+    @Test
+    void invalidateReloadsTheUser() {
+        cache.resolve("U001");
+        cache.invalidate("U001");
+        cache.resolve("U001");
+        verify(userProfileRepo, times(2)).findNamesByUserIdIn(anyCollection());
+    }
+
+    private UserProfile profile(String userId, String firstName, String lastName, String username) {
+        UserProfile profile = new UserProfile();
+        profile.setUserId(userId);
+        profile.setFirstName(firstName);
+        profile.setLastName(lastName);
+        profile.setUsername(username);
+        return profile;
+    }
+}
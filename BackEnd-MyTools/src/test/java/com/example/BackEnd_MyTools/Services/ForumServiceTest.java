@@ -0,0 +1,30 @@
+package com.example.BackEnd_MyTools.Services;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.assertj.core.api.Assertions.*;
+
+class ForumServiceTest {
+
+    @Test
+    void feedPipelinePagesQuestionsBeforeLookingUpAnswers() {
+        List<Document> pipeline = ForumService.feedPipeline("Answer", 20, 10, 3);
+
+        assertThat(pipeline).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$sort", "$skip", "$limit", "$lookup");
+        assertThat(pipeline.get(1)).containsEntry("$skip", 20L);
+        assertThat(pipeline.get(2)).containsEntry("$limit", 10);
+    }
+
+    @Test
+    void answerLookupLimitsTopAnswersAndCountsAll() {
+        Document lookup = ForumService.feedPipeline("Answer", 0, 10, 3).get(3).get("$lookup", Document.class);
+        List<Document> inner = lookup.getList("pipeline", Document.class);
+        Document facet = inner.get(1).get("$facet", Document.class);
+
+        assertThat(lookup).containsEntry("from", "Answer").containsEntry("as", "answerSummary");
+        assertThat(facet.getList("top", Document.class)).last().isEqualTo(new Document("$limit", 3));
+        assertThat(facet.getList("total", Document.class)).containsExactly(new Document("$count", "n"));
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.ChatMessage;
+import com.example.BackEnd_MyTools.DTO.SendMessageRequest;
+import com.example.BackEnd_MyTools.Entitys.Conversation;
+import com.example.BackEnd_MyTools.Kafka.UserDestinationRelay;
+import com.example.BackEnd_MyTools.Repositories.ChatMessageRepo;
+import com.example.BackEnd_MyTools.Repositories.ConversationRepo;
+import com.example.BackEnd_MyTools.Specifications.ConversationCursor;
+import com.example.BackEnd_MyTools.Specifications.MessageCursor;
+import com.example.BackEnd_MyTools.testsupport.JwtTestFactory;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import com.mongodb.client.result.UpdateResult;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessagingServiceTest {
+    @Mock
+    ConversationRepo conversationRepo;
+    @Mock
+    ChatMessageRepo chatMessageRepo;
+    @Mock
+    NotificationService notificationService;
+    @Mock
+    MongoTemplate mongoTemplate;
+    @Mock
+    UserDestinationRelay userDestinationRelay;
+    @InjectMocks
+    MessagingService messagingService;
+
+    @BeforeEach
+    void setUp() {
+        Conversation conversation = new Conversation();
+        conversation.setId("C1");
+        conversation.getParticipantIds().addAll(List.of("U1", "U2"));
+        lenient().when(conversationRepo.findById("C1")).thenReturn(Optional.of(conversation));
+    }
+
+    @Test
+    void newestPageIsReturnedOldestFirstWithACursorForOlderHistory() {
+        // Newest first, one more than the page size
+        when(mongoTemplate.find(any(Query.class), eq(ChatMessage.class)))
+                .thenReturn(List.of(message("M3", 3), message("M2", 2), message("M1", 1)));
+
+        MessagingService.MessagePage page = messagingService.messages("C1", JwtTestFactory.user("U1"), null, null, 2);
+
+        assertThat(page.items()).extracting(ChatMessage::getId).containsExactly("M2", "M3");
+        assertThat(MessageCursor.decode(page.before()).id()).isEqualTo("M2");
+        assertThat(MessageCursor.decode(page.since()).id()).isEqualTo("M3");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(ChatMessage.class));
+        assertThat(query.getValue().getLimit()).isEqualTo(3);
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("createdAt", -1).append("id", -1));
+    }
+
+    @Test
+    void sinceReturnsOnlyNewerMessagesAndKeepsTheCursorWhenNothingIsNew() {
+        when(mongoTemplate.find(any(Query.class), eq(ChatMessage.class))).thenReturn(List.of());
+        String since = MessageCursor.of(message("M3", 3)).encode();
+
+        MessagingService.MessagePage page = messagingService.messages("C1", JwtTestFactory.user("U2"), null, since, 50);
+
+        assertThat(page.items()).isEmpty();
+        assertThat(page.since()).isEqualTo(since);
+        assertThat(page.before()).isNull();
+        assertThat(page.more()).isFalse();
+    }
+
+    @Test
+    void legacyThreadIsTheWholeConversationWithoutAPageLimit() {
+        when(mongoTemplate.find(any(Query.class), eq(ChatMessage.class)))
+                .thenReturn(List.of(message("M1", 1), message("M2", 2), message("M3", 3)));
+
+        assertThat(messagingService.thread("C1", JwtTestFactory.user("U1")))
+                .extracting(ChatMessage::getId).containsExactly("M1", "M2", "M3");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(ChatMessage.class));
+        assertThat(query.getValue().isLimited()).isFalse();
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("createdAt", 1).append("id", 1));
+        assertThatThrownBy(() -> messagingService.thread("C1", JwtTestFactory.user("U9")))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    void rejectsOutsidersAndConflictingCursors() {
+        String cursor = MessageCursor.of(message("M1", 1)).encode();
+
+        assertThatThrownBy(() -> messagingService.messages("C1", JwtTestFactory.user("U9"), null, null, null))
+                .isInstanceOf(SecurityException.class);
+        assertThatThrownBy(() -> messagingService.messages("C1", JwtTestFactory.user("U1"), cursor, cursor, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> messagingService.messages("C1", JwtTestFactory.user("U1"), "not-a-cursor", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void typingIsPushedToTheOtherParticipantOnly() {
+
+        messagingService.typing(JwtTestFactory.user("U1"), "C1", true);
+
+        verify(userDestinationRelay).convertAndSendToUser("U2", "/queue/typing",
+                new MessagingService.TypingEvent("C1", "U1", true));
+        assertThatThrownBy(() -> messagingService.typing(JwtTestFactory.user("U9"), "C1", true))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    void markReadUpdatesUnreadMessagesInOneWriteAndSendsAReceipt() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(ChatMessage.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        MessagingService.ReadReceipt receipt = messagingService.markRead(JwtTestFactory.user("U2"), "C1");
+
+        assertThat(receipt.count()).isEqualTo(2);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(query.capture(), any(Update.class), eq(ChatMessage.class));
+        assertThat(query.getValue().getQueryObject()).containsEntry("receiverId", "U2").containsEntry("read", false);
+        verify(userDestinationRelay).convertAndSendToUser("U1", "/queue/receipts", receipt);
+    }
+
+    @Test
+    void markReadWithNothingUnreadSendsNoReceipt() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(ChatMessage.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertThat(messagingService.markRead(JwtTestFactory.user("U2"), "C1").count()).isZero();
+        verify(userDestinationRelay, never()).convertAndSendToUser(any(), any(), any());
+    }
+
+    @Test
+    void sendUpdatesTheSnapshotAndTheReceiversCounterInPlace() {
+        when(chatMessageRepo.save(any(ChatMessage.class))).thenAnswer(i -> i.getArgument(0));
+        SendMessageRequest request = new SendMessageRequest();
+        request.setConversationId("C1");
+        request.setBody("Is it still available?");
+
+        messagingService.send(JwtTestFactory.user("U1"), request);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        InOrder order = inOrder(mongoTemplate, chatMessageRepo);
+        order.verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Conversation.class));
+        order.verify(chatMessageRepo).save(any(ChatMessage.class));
+        order.verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Conversation.class));
+        assertThat(update.getAllValues().get(0).getUpdateObject().get("$inc", Document.class))
+                .containsEntry("unread.U2", 1);
+        assertThat(update.getAllValues().get(1).getUpdateObject().get("$set", Document.class))
+                .containsEntry("lastMessage", "Is it still available?")
+                .containsEntry("lastSenderId", "U1");
+        verify(conversationRepo, never()).save(any(Conversation.class));
+    }
+
+    @Test
+    void sendTakesTheIncrementBackWhenTheInsertFails() {
+        when(chatMessageRepo.save(any(ChatMessage.class))).thenThrow(new IllegalStateException("write failed"));
+        SendMessageRequest request = new SendMessageRequest();
+        request.setConversationId("C1");
+        request.setBody("Is it still available?");
+
+        assertThatThrownBy(() -> messagingService.send(JwtTestFactory.user("U1"), request))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(mongoTemplate).updateFirst(any(Query.class), any(AggregationUpdate.class), eq(Conversation.class));
+        verify(userDestinationRelay, never()).convertAndSendToUser(any(), any(), any());
+    }
+
+    @Test
+    void inboxPagesNewestFirstWithTheCallersUnreadCount() {
+        when(mongoTemplate.find(any(Query.class), eq(Conversation.class)))
+                .thenReturn(List.of(conversation("C3", 3, 4), conversation("C2", 2, 0), conversation("C1", 1, 1)));
+
+        MessagingService.InboxPage page = messagingService.inbox("U1", null, 2);
+
+        assertThat(page.items()).extracting(MessagingService.InboxEntry::id).containsExactly("C3", "C2");
+        assertThat(page.items()).extracting(MessagingService.InboxEntry::unread).containsExactly(4L, 0L);
+        assertThat(ConversationCursor.decode(page.next()).id()).isEqualTo("C2");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Conversation.class));
+        assertThat(query.getValue().getLimit()).isEqualTo(3);
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("updatedAt", -1).append("id", -1));
+    }
+
+    private static Conversation conversation(String id, int minute, long unread) {
+        Conversation conversation = new Conversation();
+        conversation.setId(id);
+        conversation.getParticipantIds().addAll(List.of("U1", "U2"));
+        conversation.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 12, minute));
+        conversation.getUnread().put("U1", unread);
+        return conversation;
+    }
+
+    private static ChatMessage message(String id, int minute) {
+        return ChatMessage.builder().id(id).conversationId("C1")
+                .createdAt(LocalDateTime.of(2025, 1, 1, 12, minute)).build();
+    }
+}
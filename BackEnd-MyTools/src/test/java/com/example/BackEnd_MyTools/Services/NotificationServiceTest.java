@@ -1,17 +1,29 @@
 package com.example.BackEnd_MyTools.Services;
 
 import com.example.BackEnd_MyTools.Entitys.Notification;
+import com.example.BackEnd_MyTools.Entitys.NotificationCounter;
+import com.example.BackEnd_MyTools.Kafka.UserDestinationRelay;
 import com.example.BackEnd_MyTools.Repositories.NotificationRepo;
+import org.bson.Document;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import com.mongodb.client.result.UpdateResult;
 import java.util.Optional;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -19,7 +31,9 @@ class NotificationServiceTest {
     @Mock
     NotificationRepo notificationRepo;
     @Mock
-    ObjectProvider<SimpMessagingTemplate> messagingTemplateProvider;
+    UserDestinationRelay userDestinationRelay;
+    @Mock
+    MongoTemplate mongoTemplate;
     @InjectMocks
     NotificationService notificationService;
 
@@ -40,7 +54,64 @@ class NotificationServiceTest {
     void markReadUpdatesOwnedNotification() {
         Notification n = Notification.builder().id("N001").userId("U001").read(false).build();
         when(notificationRepo.findById("N001")).thenReturn(Optional.of(n));
-        when(notificationRepo.save(any(Notification.class))).thenAnswer(i -> i.getArgument(0));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), any(Class.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
         assertThat(notificationService.markRead("N001", "U001").isRead()).isTrue();
+        verify(mongoTemplate).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(Notification.class));
+        verify(mongoTemplate).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(NotificationCounter.class));
+    }
+
+    @Test
+    void markAllReadIsOneUpdateManyAndTakesTheFlippedCountOffTheCounter() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Notification.class)))
+                .thenReturn(UpdateResult.acknowledged(3, 3L, null));
+
+        assertThat(notificationService.markAllRead("U001")).isEqualTo(3);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(query.capture(), any(Update.class), eq(Notification.class));
+        assertThat(query.getValue().getQueryObject()).containsEntry("userId", "U001").containsEntry("read", false);
+        verify(mongoTemplate).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(NotificationCounter.class));
+        verify(notificationRepo, never()).saveAll(any());
+    }
+
+    @Test
+    void createUpsertsTheCounterWithAnIncrement() {
+        when(notificationRepo.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        notificationService.create("U001", "TYPE", "Title", "Message", "REF");
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        InOrder order = inOrder(mongoTemplate, notificationRepo);
+        order.verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(NotificationCounter.class));
+        order.verify(notificationRepo).save(any(Notification.class));
+        assertThat(update.getValue().getUpdateObject().get("$inc", Document.class))
+                .containsEntry("unread", 1);
+    }
+
+    @Test
+    void createTakesTheIncrementBackWhenTheInsertFails() {
+        when(notificationRepo.save(any(Notification.class))).thenThrow(new IllegalStateException("write failed"));
+
+        assertThatThrownBy(() -> notificationService.create("U001", "TYPE", "Title", "Message", "REF"))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(mongoTemplate).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(NotificationCounter.class));
+        verify(userDestinationRelay, never()).convertAndSendToUser(any(), any(), any());
+    }
+
+    @Test
+    void unreadCountIsOneReadOfTheCounterAndNeverCountsNotifications() {
+        NotificationCounter counter = new NotificationCounter();
+        counter.setId("U001");
+        counter.setUnread(7);
+        when(mongoTemplate.findById("U001", NotificationCounter.class)).thenReturn(counter);
+        when(mongoTemplate.findById("U002", NotificationCounter.class)).thenReturn(null);
+
+        assertThat(notificationService.unreadCount("U001")).isEqualTo(7);
+        assertThat(notificationService.unreadCount("U002")).isZero();
+
+        verify(notificationRepo, never()).countByUserIdAndReadFalse(any());
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(NotificationCounter.class));
     }
 }
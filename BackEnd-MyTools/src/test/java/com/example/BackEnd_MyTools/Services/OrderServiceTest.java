@@ -0,0 +1,308 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.Booking;
+import com.example.BackEnd_MyTools.Entitys.BookingReservation;
+import com.example.BackEnd_MyTools.Entitys.Cart;
+import com.example.BackEnd_MyTools.Entitys.Order;
+import com.example.BackEnd_MyTools.Entitys.Product;
+import com.example.BackEnd_MyTools.Kafka.KafkaProducerService;
+import com.example.BackEnd_MyTools.Repositories.BookingRepo;
+import com.example.BackEnd_MyTools.Repositories.CartRepo;
+import com.example.BackEnd_MyTools.Repositories.MasteryRepo;
+import com.example.BackEnd_MyTools.Repositories.OrderRepo;
+import com.example.BackEnd_MyTools.Repositories.ProductRepo;
+import com.example.BackEnd_MyTools.testsupport.JwtTestFactory;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hundreds of parallel checkouts renting two tools, through the real BookingService and BookingReservationService
+ * over an in-memory stand-in for the Booking and BookingReservation collections. Every seventh booking insert
+ * fails after its first document, so the rollback path runs under contention too. Status changes race each other
+ * and new checkouts over the same stand-in.
+ */
+class OrderServiceTest {
+    // putIfAbsent has the same per-key atomicity as the unique _id index
+    final Map<String, BookingReservation> reservations = new ConcurrentHashMap<>();
+    final Map<String, Booking> bookings = new ConcurrentHashMap<>();
+    final AtomicInteger inserts = new AtomicInteger();
+    BookingService bookingService;
+    OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        doAnswer(invocation -> {
+            Collection<BookingReservation> batch = invocation.getArgument(0);
+            for (BookingReservation day : batch)
+                if (reservations.putIfAbsent(day.getId(), day) != null)
+                    throw new DuplicateKeyException("E11000 duplicate key " + day.getId());
+            return batch;
+        }).when(mongoTemplate).insert(anyCollection(), eq(BookingReservation.class));
+        doAnswer(invocation -> {
+            Document filter = invocation.<Query>getArgument(0).getQueryObject();
+            String holdId = filter.getString("holdId");
+            filter.get("id", Document.class).getList("$in", Object.class).forEach(id -> reservations
+                    .computeIfPresent((String) id, (key, day) -> holdId.equals(day.getHoldId()) ? null : day));
+            return null;
+        }).when(mongoTemplate).remove(any(Query.class), eq(BookingReservation.class));
+        doAnswer(invocation -> invocation.<Query>getArgument(0).getQueryObject().get("id", Document.class)
+                .getList("$in", Object.class).stream().map(reservations::get).filter(Objects::nonNull).toList())
+                .when(mongoTemplate).find(any(Query.class), eq(BookingReservation.class));
+        // The fast-path conflict query on active bookings: BookingService keeps only real overlaps itself
+        doAnswer(invocation -> bookings.values().stream().filter(OrderServiceTest::isActive).toList())
+                .when(mongoTemplate).find(any(Query.class), eq(Booking.class));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Booking.class))).thenAnswer(invocation -> {
+                    Document filter = invocation.<Query>getArgument(0).getQueryObject();
+                    Document set = invocation.<Update>getArgument(1).getUpdateObject().get("$set", Document.class);
+                    Booking[] updated = new Booking[1];
+                    // computeIfPresent checks the status and writes under the key's lock, like findAndModify
+                    bookings.computeIfPresent(filter.getString("id"), (id, booking) -> {
+                        if (booking.getStatus() != filter.get("status"))
+                            return booking;
+                        updated[0] = copy(booking);
+                        updated[0].setStatus((Booking.BookingStatus) set.get("status"));
+                        if (set.containsKey("reservationId"))
+                            updated[0].setReservationId(set.getString("reservationId"));
+                        return updated[0];
+                    });
+                    return updated[0] == null ? null : copy(updated[0]);
+                });
+        doAnswer(invocation -> {
+            String holdId = invocation.<Query>getArgument(0).getQueryObject().getString("reservationId");
+            bookings.values().removeIf(booking -> holdId.equals(booking.getReservationId()));
+            return null;
+        }).when(mongoTemplate).remove(any(Query.class), eq(Booking.class));
+
+        BookingRepo bookingRepo = mock(BookingRepo.class);
+        when(bookingRepo.insert(anyList())).thenAnswer(invocation -> {
+            List<Booking> batch = invocation.getArgument(0);
+            boolean fail = inserts.incrementAndGet() % 7 == 0;
+            // Ordered insertMany: documents before the failure stay inserted
+            for (Booking booking : fail ? batch.subList(0, 1) : batch) {
+                booking.setId(UUID.randomUUID().toString());
+                bookings.put(booking.getId(), booking);
+            }
+            if (fail)
+                throw new DataAccessResourceFailureException("connection reset");
+            return batch;
+        });
+        when(bookingRepo.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(bookings.get(invocation.<String>getArgument(0)))
+                        .map(OrderServiceTest::copy));
+        BookingReservationService reservationService =
+                new BookingReservationService(mongoTemplate, mock(AvailabilityIndex.class));
+        bookingService = new BookingService(bookingRepo, mock(ProductRepo.class),
+                mock(MasteryRepo.class), mock(DisplayNameCache.class), mock(NotificationService.class), mongoTemplate,
+                reservationService, mock(AvailabilityIndex.class));
+
+        CartRepo cartRepo = mock(CartRepo.class);
+        when(cartRepo.findByUserIdAndStatus(anyString(), eq(Cart.CartStatus.ACTIVE)))
+                .thenAnswer(invocation -> Optional.of(randomCart(invocation.getArgument(0))));
+        ProductRepo productRepo = mock(ProductRepo.class);
+        when(productRepo.findAllById(any())).thenReturn(List.of(product("P001"), product("P002")));
+        OrderRepo orderRepo = mock(OrderRepo.class);
+        when(orderRepo.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(UUID.randomUUID().toString());
+            return order;
+        });
+        orderService = new OrderService(orderRepo, cartRepo, productRepo, mock(CartService.class), bookingService,
+                mock(NotificationService.class), mock(KafkaProducerService.class),
+                mock(AnalyticsCounterService.class));
+    }
+
+    @Test
+    void parallelCheckoutsNeverOverlapAndLeaveNoOrphans() throws Exception {
+        int attempts = 300;
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Order>> results = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            String buyer = "B" + i;
+            results.add(pool.submit(() -> {
+                go.await();
+                try {
+                    return orderService.checkout(JwtTestFactory.user(buyer), null);
+                } catch (IllegalArgumentException | DataAccessResourceFailureException rejected) {
+                    return null;
+                }
+            }));
+        }
+        go.countDown();
+        Set<String> placed = new HashSet<>();
+        for (Future<Order> result : results) {
+            Order order = result.get(60, TimeUnit.SECONDS);
+            if (order != null)
+                placed.add(order.getId());
+        }
+        pool.shutdown();
+
+        assertThat(placed).isNotEmpty().hasSizeLessThan(attempts);
+        // Every remaining booking belongs to a placed order: failed inserts were rolled back
+        assertThat(bookings.values()).allMatch(booking -> placed.contains(booking.getOrderId()));
+        List<Booking> all = new ArrayList<>(bookings.values());
+        for (int i = 0; i < all.size(); i++)
+            for (int j = i + 1; j < all.size(); j++) {
+                Booking a = all.get(i), b = all.get(j);
+                assertThat(a.getProductId().equals(b.getProductId())
+                        && a.getStartDate().isBefore(b.getEndDate()) && b.getStartDate().isBefore(a.getEndDate()))
+                        .as("bookings %s and %s overlap", a.getId(), b.getId()).isFalse();
+            }
+        // No leftover holds: the held days are exactly the days of the surviving bookings
+        Set<String> bookedDays = new HashSet<>();
+        for (Booking booking : all)
+            booking.getStartDate().datesUntil(booking.getEndDate()).forEach(day -> bookedDays
+                    .add(BookingReservation.key(Booking.ResourceType.PRODUCT, booking.getProductId(), day)));
+        assertThat(reservations.keySet()).isEqualTo(bookedDays);
+    }
+
+    @Test
+    void racingCancelAndConfirmNeverLeaveAnActiveBookingWithoutItsDays() throws Exception {
+        for (int i = 0; i < 60; i++) {
+            try {
+                orderService.checkout(JwtTestFactory.user("B" + i), null);
+            } catch (IllegalArgumentException | DataAccessResourceFailureException rejected) {
+                // conflicting dates or the injected insert failure
+            }
+        }
+        List<Booking> placed = new ArrayList<>(bookings.values());
+        assertThat(placed).isNotEmpty();
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        AtomicInteger cancelled = new AtomicInteger();
+        for (Booking booking : placed) {
+            // The customer cancels while the owner confirms; whichever writes second read a stale status
+            results.add(pool.submit(() -> {
+                go.await();
+                try {
+                    bookingService.updateStatus(booking.getId(), Booking.BookingStatus.CANCELLED,
+                            JwtTestFactory.user(booking.getUserId()));
+                    cancelled.incrementAndGet();
+                } catch (IllegalArgumentException lostRace) {
+                    // the confirm got there first
+                }
+                return null;
+            }));
+            results.add(pool.submit(() -> {
+                go.await();
+                try {
+                    bookingService.updateStatus(booking.getId(), Booking.BookingStatus.CONFIRMED,
+                            JwtTestFactory.user("OWNER"));
+                } catch (IllegalArgumentException lostRace) {
+                    // the cancel got there first
+                }
+                return null;
+            }));
+        }
+        // New checkouts compete for the days the cancels free
+        for (int i = 0; i < 200; i++) {
+            String buyer = "C" + i;
+            results.add(pool.submit(() -> {
+                go.await();
+                try {
+                    return orderService.checkout(JwtTestFactory.user(buyer), null);
+                } catch (IllegalArgumentException | DataAccessResourceFailureException rejected) {
+                    return null;
+                }
+            }));
+        }
+        go.countDown();
+        for (Future<?> result : results)
+            result.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertThat(cancelled.get()).isPositive();
+        List<Booking> active = bookings.values().stream().filter(OrderServiceTest::isActive).toList();
+        Set<String> heldDays = new HashSet<>();
+        for (Booking booking : active) {
+            // Every day of an active booking is still held, and by that booking's own hold
+            booking.getStartDate().datesUntil(booking.getEndDate()).forEach(day -> {
+                String key = BookingReservation.key(Booking.ResourceType.PRODUCT, booking.getProductId(), day);
+                assertThat(reservations.get(key)).as("day %s of booking %s", day, booking.getId())
+                        .isNotNull().extracting(BookingReservation::getHoldId).isEqualTo(booking.getReservationId());
+                assertThat(heldDays.add(key)).as("day %s is booked twice", key).isTrue();
+            });
+        }
+        assertThat(reservations.keySet()).isEqualTo(heldDays);
+    }
+
+    private static boolean isActive(Booking booking) {
+        return booking.getStatus() == Booking.BookingStatus.PENDING
+                || booking.getStatus() == Booking.BookingStatus.CONFIRMED;
+    }
+
+    // What a read returns: a snapshot the caller can change without touching the stored document
+    private static Booking copy(Booking booking) {
+        return Booking.builder().id(booking.getId()).resourceType(booking.getResourceType())
+                .resourceId(booking.getResourceId()).productId(booking.getProductId())
+                .ownerId(booking.getOwnerId()).userId(booking.getUserId()).orderId(booking.getOrderId())
+                .startDate(booking.getStartDate()).endDate(booking.getEndDate()).quantity(booking.getQuantity())
+                .status(booking.getStatus()).reservationId(booking.getReservationId()).build();
+    }
+
+    private static Cart randomCart(String buyer) {
+        Cart cart = new Cart();
+        cart.setUserId(buyer);
+        cart.setStatus(Cart.CartStatus.ACTIVE);
+        LocalDate base = LocalDate.now().plusDays(30);
+        for (String productId : List.of("P001", "P002")) {
+            LocalDate start = base.plusDays(ThreadLocalRandom.current().nextInt(60));
+            cart.getItems().add(Cart.CartItem.builder()
+                    .productId(productId)
+                    .quantity(1)
+                    .listingType(Cart.CartItem.ListingType.RENT)
+                    .startDate(start)
+                    .endDate(start.plusDays(1 + ThreadLocalRandom.current().nextInt(5)))
+                    .build());
+        }
+        return cart;
+    }
+
+    private static Product product(String id) {
+        Product p = new Product();
+        p.setId(id);
+        p.setName("Tool " + id);
+        p.setOwnerId("OWNER");
+        p.setPrice(100);
+        p.setIsavailable(true);
+        return p;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.Product;
+import com.example.BackEnd_MyTools.Repositories.ProductRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCacheTest {
+    ProductRepo productRepo;
+    SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        productRepo = mock(ProductRepo.class);
+        registry = new SimpleMeterRegistry();
+        when(productRepo.findById("P001")).thenReturn(Optional.of(product("P001")));
+        when(productRepo.findById("P002")).thenReturn(Optional.of(product("P002")));
+    }
+
+    @Test
+    void secondLookupIsServedFromMemoryUntilInvalidated() {
+        ProductCache cache = new ProductCache(productRepo, registry, Duration.ofMinutes(1), 1 << 20);
+        cache.get("P001");
+        cache.get("P001");
+        verify(productRepo, times(1)).findById("P001");
+        cache.invalidate("P001");
+        cache.get("P001");
+        verify(productRepo, times(2)).findById("P001");
+        assertThat(registry.get("cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("result", "miss").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() {
+        ProductCache cache = new ProductCache(productRepo, registry, Duration.ZERO, 1 << 20);
+        cache.get("P001");
+        cache.get("P001");
+        verify(productRepo, times(2)).findById("P001");
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenOverBudget() {
+        long oneEntry = ProductCache.estimateWeight(product("P001"));
+        ProductCache cache = new ProductCache(productRepo, registry, Duration.ofMinutes(1), oneEntry);
+        cache.get("P001");
+        cache.get("P002");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(registry.get("cache.evictions").counter().count()).isEqualTo(1);
+        cache.get("P002");
+        verify(productRepo, times(1)).findById("P002");
+    }
+
+    private Product product(String id) {
+        Product p = new Product();
+        p.setId(id);
+        p.setName("Hammer drill");
+        return p;
+    }
+}
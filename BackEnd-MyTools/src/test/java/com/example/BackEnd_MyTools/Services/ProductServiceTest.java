@@ -2,17 +2,24 @@ package com.example.BackEnd_MyTools.Services;
 
 import com.example.BackEnd_MyTools.Entitys.Product;
 import com.example.BackEnd_MyTools.Repositories.ProductRepo;
+import com.example.BackEnd_MyTools.Specifications.ProductCursor;
 import com.example.BackEnd_MyTools.testsupport.JwtTestFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -21,6 +28,8 @@ class ProductServiceTest {
     ProductRepo productRepo;
     @Mock
     MongoTemplate mongoTemplate;
+    @Mock
+    ProductCache productCache;
     @InjectMocks
     ProductService productService;
 
@@ -40,6 +49,18 @@ class ProductServiceTest {
         Product saved = productService.updateProduct("P001", u, JwtTestFactory.user("U001"));
         assertThat(saved.getName()).isEqualTo("Updated drill");
         assertThat(saved.getPhotoUrls()).containsExactly("photo-1");
+        verify(productCache).invalidate("P001");
+    }
+
+    @Test
+    void cityFilterIsAnEqualityOnTheNormalizedKey() {
+        Query query = productService.searchQuery(
+                new ProductService.ListingSearch(null, null, null, null, null, "  fès ", null), 20);
+
+        assertThat(query.getQueryObject().toJson()).contains("\"cityKey\": \"FES\"").doesNotContain("$regex");
+        Product p = new Product();
+        p.setCity("Fès");
+        assertThat(p.getCityKey()).isEqualTo("FES");
     }
 
     @Test
@@ -57,7 +78,58 @@ class ProductServiceTest {
         Product h = new Product();
         h.setId("P001");
         h.setHidden(true);
-        when(productRepo.findById("P001")).thenReturn(Optional.of(h));
+        when(productCache.get("P001")).thenReturn(Optional.of(h));
         assertThat(productService.getProductById("P001")).isNull();
     }
+
+    @Test
+    void getProductsPageReturnsCursorOfLastItemWhenMoreRowsExist() {
+        Product a = listed("P003", 3000);
+        Product b = listed("P002", 2000);
+        Product c = listed("P001", 1000);
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(new ArrayList<>(List.of(a, b, c)));
+        ProductService.ProductPage page = productService.getProductsPage(null, null, null, null, null, null, null,
+                null, null, 2);
+        assertThat(page.items()).containsExactly(a, b);
+        assertThat(ProductCursor.decode(page.nextCursor())).isEqualTo(new ProductCursor(b.getCreatedAt(), "P002"));
+    }
+
+    @Test
+    void getProductsPageHasNoCursorOnLastPage() {
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(listed("P001", 1000)));
+        ProductService.ProductPage page = productService.getProductsPage(null, null, null, null, null, null, null,
+                null, null, 20);
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void getProductsPageRejectsMalformedCursor() {
+        assertThatThrownBy(() -> productService.getProductsPage(null, null, null, null, null, null, null, null,
+                "not-a-cursor", 20)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void nameSearchUsesTextIndexRankedByScore() {
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.find(captor.capture(), eq(Product.class))).thenReturn(List.of());
+        productService.getAllProductsSpecs(null, null, true, "drill (bosch", null, null, null, null);
+        Query query = captor.getValue();
+        assertThat(query.getQueryObject().get("$text", org.bson.Document.class).getString("$search"))
+                .isEqualTo("drill (bosch");
+        assertThat(query.getSortObject()).containsKey("score");
+    }
+
+    @Test
+    void listingQueryFiltersVisibilityByEquality() {
+        Query query = productService.listingQuery(1, null, true, null, null, null, null, null);
+        assertThat(query.getQueryObject().toJson()).contains("\"hidden\": false").doesNotContain("$exists");
+    }
+
+    private Product listed(String id, long createdAtMillis) {
+        Product p = new Product();
+        p.setId(id);
+        p.setCreatedAt(Instant.ofEpochMilli(createdAtMillis));
+        return p;
+    }
 }
@@ -0,0 +1,112 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.Lookups;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the smart-search query log in {@code benchmarks/smart-search-queries.txt} against the lookups the seeders
+ * write. Not a unit test; run it from the test classpath, e.g. from the IDE or with
+ * {@code java -cp <test classpath> com.example.BackEnd_MyTools.Services.QueryUnderstandingBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryUnderstandingBenchmark {
+    private static final String QUERY_LOG = "/benchmarks/smart-search-queries.txt";
+
+    private QueryUnderstandingService service;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        service = new QueryUnderstandingService(new SeededLookups());
+        service.reload();
+        queries = readQueryLog();
+    }
+
+    /** One query per call, cycling through the log so every shape is measured. */
+    @Benchmark
+    public ProductService.ListingSearch parse() {
+        String query = queries[next];
+        next = next + 1 == queries.length ? 0 : next + 1;
+        return service.parse(query);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(QueryUnderstandingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static String[] readQueryLog() throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                QueryUnderstandingBenchmark.class.getResourceAsStream(QUERY_LOG), StandardCharsets.UTF_8))) {
+            for (String line; (line = reader.readLine()) != null;) {
+                if (!line.isBlank() && !line.startsWith("#"))
+                    lines.add(line);
+            }
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    // The rows AllEntitiesSeeder and SearchLookupMigration write, without a database
+    private static final class SeededLookups extends LookupService {
+        private static final String[][] ROWS = {
+                { "CATEGORY", "1", "Construction Tools" }, { "CATEGORY", "2", "Heavy Equipment" },
+                { "CATEGORY", "3", "Painting & Finishing" }, { "CATEGORY", "4", "Measurement" },
+                { "CATEGORY", "5", "Transport" }, { "CATEGORY", "6", "IT & Electronics" },
+                { "CATEGORY_SYNONYM", "1", "drill,tool,tools,hammer,saw,grinder" },
+                { "CATEGORY_SYNONYM", "2", "excavator,crane,loader,generator" },
+                { "CATEGORY_SYNONYM", "3", "paint,painting,sprayer,roller" },
+                { "CATEGORY_SYNONYM", "4", "level,laser,meter,measuring" },
+                { "CATEGORY_SYNONYM", "5", "truck,van,trailer" },
+                { "CATEGORY_SYNONYM", "6", "computer,laptop,camera,printer" },
+                { "MARK", "1", "Bosch" }, { "MARK", "2", "Makita" }, { "MARK", "3", "DeWalt" },
+                { "MARK", "4", "Stanley" }, { "MARK", "5", "Hilti" },
+                { "CITY", "RABAT", "Rabat" }, { "CITY", "CASABLANCA", "Casablanca" },
+                { "CITY", "MARRAKECH", "Marrakech" }, { "CITY", "TANGIER", "Tangier" }, { "CITY", "FES", "Fes" },
+                { "CITY", "AGADIR", "Agadir" } };
+
+        SeededLookups() {
+            super(null);
+        }
+
+        @Override
+        public List<Lookups> getActiveLookupsByType(String type) {
+            List<Lookups> rows = new ArrayList<>();
+            for (String[] row : ROWS) {
+                if (row[0].equals(type)) {
+                    Lookups lookup = new Lookups();
+                    lookup.setType(row[0]);
+                    lookup.setCode(row[1]);
+                    lookup.setValue(row[2]);
+                    lookup.setActive(true);
+                    rows.add(lookup);
+                }
+            }
+            return rows;
+        }
+    }
+}
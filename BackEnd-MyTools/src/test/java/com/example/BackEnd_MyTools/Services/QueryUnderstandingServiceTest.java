@@ -0,0 +1,61 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.Lookups;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueryUnderstandingServiceTest {
+    QueryUnderstandingService service;
+
+    @BeforeEach
+    void setUp() {
+        LookupService lookupService = mock(LookupService.class);
+        when(lookupService.getActiveLookupsByType(anyString())).thenReturn(List.of());
+        when(lookupService.getActiveLookupsByType("CATEGORY"))
+                .thenReturn(List.of(lookup("CATEGORY", "1", "Construction Tools")));
+        when(lookupService.getActiveLookupsByType("CATEGORY_SYNONYM"))
+                .thenReturn(List.of(lookup("CATEGORY_SYNONYM", "1", "drill,power drill"),
+                        lookup("CATEGORY_SYNONYM", "6", "laptop")));
+        when(lookupService.getActiveLookupsByType("MARK")).thenReturn(List.of(lookup("MARK", "1", "Bosch")));
+        when(lookupService.getActiveLookupsByType("CITY")).thenReturn(List.of(lookup("CITY", "RABAT", "Rabat")));
+        service = new QueryUnderstandingService(lookupService);
+        service.reload();
+    }
+
+    @Test
+    void extractsEveryConstraintInOnePass() {
+        assertThat(service.parse("Bosch power drill for rent in Rabat under 500"))
+                .isEqualTo(new ProductService.ListingSearch(1, 1, null, 500, 1, "Rabat", "power drill"));
+    }
+
+    @Test
+    void readsPriceRangesAndSaleIntent() {
+        assertThat(service.parse("laptop to buy between 2000 and 5000"))
+                .isEqualTo(new ProductService.ListingSearch(6, null, 2000, 5000, 0, null, "laptop"));
+    }
+
+    @Test
+    void unknownWordAfterInIsNotTakenAsCity() {
+        assertThat(service.parse("drill in good condition"))
+                .isEqualTo(new ProductService.ListingSearch(1, null, null, null, null, null,
+                        "drill in good condition"));
+    }
+
+    @Test
+    void priceKeywordWithoutAmountStaysInText() {
+        assertThat(service.parse("over the top ladder").text()).isEqualTo("over the top ladder");
+    }
+
+    private Lookups lookup(String type, String code, String value) {
+        Lookups l = new Lookups();
+        l.setType(type);
+        l.setCode(code);
+        l.setValue(value);
+        return l;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.BackEnd_MyTools.Services;
+
+import com.example.BackEnd_MyTools.Entitys.Question;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuestionViewCounterTest {
+    MongoTemplate mongoTemplate;
+    BulkOperations bulk;
+    QuestionViewCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(Question.class))).thenReturn(bulk);
+        counter = new QuestionViewCounter(mongoTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void concurrentViewsAreFlushedAsOneIncrement() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++)
+            pool.execute(() -> counter.record("Q1"));
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(counter.pending("Q1")).isEqualTo(1000);
+        counter.flush();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk).updateOne(any(Query.class), update.capture());
+        verify(bulk).execute();
+        assertThat(update.getValue().getUpdateObject().get("$inc", Document.class)).containsEntry("viewCount", 1000L);
+        assertThat(counter.pending("Q1")).isZero();
+    }
+
+    @Test
+    void viewsRecordedWhileFlushingAreNeverLost() throws Exception {
+        AtomicLong written = new AtomicLong();
+        doAnswer(i -> {
+            written.addAndGet(((Update) i.getArgument(1)).getUpdateObject().get("$inc", Document.class)
+                    .get("viewCount", Long.class));
+            return bulk;
+        }).when(bulk).updateOne(any(Query.class), any(Update.class));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        AtomicBoolean recording = new AtomicBoolean(true);
+        // Few keys, so flush keeps seeing idle adders that views are racing to
+        for (int i = 0; i < 20_000; i++) {
+            String id = "Q" + (i % 3);
+            pool.execute(() -> counter.record(id));
+        }
+        pool.shutdown();
+        Thread flusher = new Thread(() -> {
+            while (recording.get())
+                counter.flush();
+        });
+        flusher.start();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        recording.set(false);
+        flusher.join();
+        counter.flush();
+
+        assertThat(written.get()).isEqualTo(20_000);
+    }
+
+    @Test
+    void idleCountersWriteNothing() {
+        counter.record("Q1");
+        counter.flush();
+        reset(bulk);
+
+        counter.flush();
+
+        verify(mongoTemplate).bulkOps(any(BulkOperations.BulkMode.class), eq(Question.class));
+        verify(bulk, never()).execute();
+    }
+
+    @Test
+    void failedFlushKeepsTheViewsForTheNextOne() {
+        when(bulk.execute()).thenThrow(new IllegalStateException("down"));
+        counter.record("Q1");
+        counter.record("Q1");
+
+        counter.flush();
+
+        assertThat(counter.pending("Q1")).isEqualTo(2);
+    }
+
+    @Test
+    void partlyFailedFlushKeepsOnlyTheFailedViews() {
+        BulkOperationException partial = mock(BulkOperationException.class);
+        // Index 1 is the second update of the bulk, i.e. Q2
+        when(partial.getErrors()).thenReturn(List.of(new BulkWriteError(50, "timed out", new BsonDocument(), 1)));
+        when(bulk.execute()).thenThrow(partial);
+        counter.record("Q1");
+        counter.record("Q2");
+        counter.record("Q2");
+
+        counter.flush();
+
+        assertThat(counter.pending("Q1")).isZero();
+        assertThat(counter.pending("Q2")).isEqualTo(2);
+    }
+
+    @Test
+    void viewsOfARetiredCounterStartANewOne() {
+        counter.record("Q1");
+        counter.flush();
+        // Idle for a whole flush, so this one retires Q1's adder
+        counter.flush();
+
+        counter.record("Q1");
+
+        assertThat(counter.pending("Q1")).isEqualTo(1);
+    }
+}
@@ -9,31 +9,36 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class SmartSearchServiceTest {
     @Mock
     ProductService productService;
+    @Mock
+    QueryUnderstandingService queryUnderstandingService;
     @InjectMocks
     SmartSearchService smartSearchService;
 
     @Test
-    void searchProductsInfersCategoryAndMaxPrice() {
+    void searchProductsRunsTheParsedConstraintsAsOneBoundedQuery() {
         Product cheap = product("P001", 800);
-        Product expensive = product("P002", 1400);
-        when(productService.getAllProductsSpecs(1, null, true, "drill", null, null, null, null))
-                .thenReturn(List.of(cheap, expensive));
+        ProductService.ListingSearch parsed = new ProductService.ListingSearch(1, null, null, 1000, null, null,
+                "drill");
+        when(queryUnderstandingService.parse("drill under 1000")).thenReturn(parsed);
+        when(productService.searchListings(parsed, SmartSearchService.MAX_RESULTS)).thenReturn(List.of(cheap));
         List<Product> results = smartSearchService.searchProducts("drill under 1000");
         assertThat(results).containsExactly(cheap);
-        verify(productService).getAllProductsSpecs(1, null, true, "drill", null, null, null, null);
+        verify(productService).searchListings(parsed, SmartSearchService.MAX_RESULTS);
     }
 
     @Test
     void blankQueryReturnsAvailableProducts() {
-        when(productService.getAllProductsSpecs(null, null, true, null, null, null, null, null))
-                .thenReturn(List.of(product("P001", 100)));
+        when(productService.searchListings(new ProductService.ListingSearch(null, null, null, null, null, null, null),
+                SmartSearchService.MAX_RESULTS)).thenReturn(List.of(product("P001", 100)));
         assertThat(smartSearchService.searchProducts("   ")).hasSize(1);
+        verifyNoInteractions(queryUnderstandingService);
     }
 
     private Product product(String id, int price) {